@@ -0,0 +1,244 @@
+package im.nll.data.extractor;
+
+import im.nll.data.extractor.exception.ReflectException;
+import im.nll.data.extractor.utils.Reflect;
+import im.nll.data.extractor.utils.StringUtils;
+import im.nll.data.extractor.utils.TypeUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * bind extracted values to the fields of a bean class.
+ * <p>
+ * a binder is built once per class and cached by {@link ClassValue}, it resolves the fields, their setters
+ * and type converters once, so binding a record does no reflective lookup. fields are resolved like
+ * {@link Reflect#field0(String)}, values are converted like {@link Reflect#set(String, Object)}.
+ * </p>
+ *
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/17 下午10:06
+ */
+final class BeanBinder {
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final ClassValue<BeanBinder> BINDERS = new ClassValue<BeanBinder>() {
+        @Override
+        protected BeanBinder computeValue(Class<?> type) {
+            return new BeanBinder(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final MethodHandle constructor;
+    private final Map<String, FieldSetter> fields;
+    private final Map<String, Property> properties = new ConcurrentHashMap<>();
+
+    private BeanBinder(Class<?> type) {
+        this.type = type;
+        this.constructor = constructor(type);
+        Map<String, FieldSetter> fields = new HashMap<>();
+        // public fields first, then the declared fields from the class to its super classes
+        for (Field field : type.getFields()) {
+            fields.putIfAbsent(field.getName(), new FieldSetter(field));
+        }
+        for (Class<?> one = type; one != null; one = one.getSuperclass()) {
+            for (Field field : one.getDeclaredFields()) {
+                if (!fields.containsKey(field.getName())) {
+                    try {
+                        fields.put(field.getName(), new FieldSetter(Reflect.accessible(field)));
+                    } catch (RuntimeException e) {
+                        // the field can't be made accessible, such as a field of a jdk class
+                    }
+                }
+            }
+        }
+        this.fields = fields;
+    }
+
+    static BeanBinder of(Class<?> type) {
+        return BINDERS.get(type);
+    }
+
+    /**
+     * create a bean by the no-arg constructor
+     *
+     * @return
+     */
+    Object create() {
+        if (constructor == null) {
+            return Reflect.on(type).create().get();
+        }
+        try {
+            return constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new ReflectException(e);
+        }
+    }
+
+    /**
+     * get the property of a field name, the name of a field in an embeddable field is 'field.embeddableField'.
+     *
+     * @param name
+     * @return
+     */
+    Property property(String name) {
+        Property property = properties.get(name);
+        if (property == null) {
+            property = resolve(name);
+            properties.put(name, property);
+        }
+        return property;
+    }
+
+    private Property resolve(String name) {
+        if (name.contains(".")) {
+            String fieldName = StringUtils.substringBefore(name, ".");
+            String embeddableFieldName = StringUtils.substringAfter(name, ".");
+            FieldSetter owner = field(fieldName);
+            BeanBinder embeddable = of(owner.field.getType());
+            return new Property(fieldName, owner, embeddable, embeddable.field(embeddableFieldName));
+        }
+        return new Property(name, null, null, field(name));
+    }
+
+    private FieldSetter field(String name) {
+        FieldSetter field = fields.get(name);
+        if (field == null) {
+            throw new ReflectException(new NoSuchFieldException(type.getName() + "." + name));
+        }
+        return field;
+    }
+
+    private static MethodHandle constructor(Class<?> type) {
+        try {
+            Constructor<?> constructor = Reflect.accessible(type.getDeclaredConstructor());
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (Exception e) {
+            // no usable no-arg constructor, let Reflect report it
+            return null;
+        }
+    }
+
+    /**
+     * a field of the bean, or a field of an embeddable field of the bean.
+     */
+    static final class Property {
+        private final String ownerName;
+        private final FieldSetter owner;
+        private final BeanBinder embeddable;
+        private final FieldSetter field;
+
+        private Property(String ownerName, FieldSetter owner, BeanBinder embeddable, FieldSetter field) {
+            this.ownerName = ownerName;
+            this.owner = owner;
+            this.embeddable = embeddable;
+            this.field = field;
+        }
+
+        /**
+         * set the value to the bean. embeddable beans are created once per bean and kept in embeddables.
+         *
+         * @param bean
+         * @param value
+         * @param embeddables
+         */
+        void set(Object bean, String value, Map<String, Object> embeddables) {
+            if (owner == null) {
+                field.set(bean, value);
+                return;
+            }
+            Object embeddableBean = embeddables.get(ownerName);
+            if (embeddableBean == null) {
+                embeddableBean = embeddable.create();
+                embeddables.put(ownerName, embeddableBean);
+            }
+            field.set(embeddableBean, value);
+            owner.setObject(bean, embeddableBean);
+        }
+    }
+
+    private static final class FieldSetter {
+        private final Field field;
+        private final MethodHandle setter;
+        private final Function<String, Object> converter;
+
+        private FieldSetter(Field field) {
+            this.field = field;
+            this.setter = setter(field);
+            this.converter = converter(field.getType());
+        }
+
+        void set(Object bean, String value) {
+            Object converted;
+            try {
+                converted = converter.apply(value);
+            } catch (RuntimeException e) {
+                throw new ReflectException(e);
+            }
+            setObject(bean, converted);
+        }
+
+        void setObject(Object bean, Object value) {
+            try {
+                if (setter != null) {
+                    setter.invokeExact(bean, value);
+                } else {
+                    field.set(bean, value);
+                }
+            } catch (Throwable e) {
+                throw new ReflectException(e);
+            }
+        }
+
+        private static MethodHandle setter(Field field) {
+            if (Modifier.isFinal(field.getModifiers())) {
+                // final fields can only be set by reflection
+                return null;
+            }
+            try {
+                MethodHandle setter = MethodHandles.lookup().unreflectSetter(field);
+                if (Modifier.isStatic(field.getModifiers())) {
+                    setter = MethodHandles.dropArguments(setter, 0, Object.class);
+                }
+                return setter.asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+
+        private static Function<String, Object> converter(Class<?> type) {
+            if (type.isAssignableFrom(String.class)) {
+                return value -> value;
+            }
+            if (type == int.class || type == Integer.class) {
+                return TypeUtils::castToInt;
+            }
+            if (type == long.class || type == Long.class) {
+                return TypeUtils::castToLong;
+            }
+            if (type == double.class || type == Double.class) {
+                return TypeUtils::castToDouble;
+            }
+            if (type == float.class || type == Float.class) {
+                return TypeUtils::castToFloat;
+            }
+            if (type == boolean.class || type == Boolean.class) {
+                return TypeUtils::castToBoolean;
+            }
+            if (type == BigDecimal.class) {
+                return TypeUtils::castToBigDecimal;
+            }
+            return value -> TypeUtils.cast(value, type);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package im.nll.data.extractor;
+
+import im.nll.data.extractor.exception.ExtractException;
+import im.nll.data.extractor.utils.Validate;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * the document being extracted.
+ * <p>
+ * parsed documents are cached by parser kind, so every extractor that starts from the same input
+ * shares one parse. a context belongs to one document and is not thread-safe.
+ * </p>
+ * <p>
+ * a context of bytes or a file is {@link #isBinary() binary}, parsers read it by {@link #openStream()}
+ * and the data is decoded to a string only when an extractor needs the string.
+ * </p>
+ *
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/17 下午7:52
+ */
+public class ExtractContext {
+    private String data;
+    private Supplier<String> dataSupplier;
+    private byte[] bytes;
+    private Path path;
+    private Charset charset;
+    private final Map<Object, Object> documents = new HashMap<>(4);
+
+    public ExtractContext(String data) {
+        this.data = data;
+    }
+
+    /**
+     * create a context for the data to extract
+     *
+     * @param data
+     * @return
+     */
+    public static ExtractContext of(String data) {
+        return new ExtractContext(data);
+    }
+
+    /**
+     * create a context for the bytes to extract
+     *
+     * @param data
+     * @param charset
+     * @return
+     */
+    public static ExtractContext of(byte[] data, Charset charset) {
+        Validate.notNull(data, "data can't be null!");
+        Validate.notNull(charset, "charset can't be null!");
+        ExtractContext context = new ExtractContext(null);
+        context.bytes = data;
+        context.charset = charset;
+        return context;
+    }
+
+    /**
+     * create a context for the stream to extract. the stream is read to the end once,
+     * so that every parser can read it again, and it is not closed.
+     *
+     * @param in
+     * @param charset
+     * @return
+     */
+    public static ExtractContext of(InputStream in, Charset charset) {
+        Validate.notNull(in, "input stream can't be null!");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            throw new ExtractException(e);
+        }
+        return of(out.toByteArray(), charset);
+    }
+
+    /**
+     * create a context for the file to extract. the file is opened again by every parser.
+     *
+     * @param path
+     * @param charset
+     * @return
+     */
+    public static ExtractContext of(Path path, Charset charset) {
+        Validate.notNull(path, "path can't be null!");
+        Validate.notNull(charset, "charset can't be null!");
+        ExtractContext context = new ExtractContext(null);
+        context.path = path;
+        context.charset = charset;
+        return context;
+    }
+
+    /**
+     * create a context for a node of a parsed document, such as a record of split.
+     * extractors of the same parser kind read the node directly, the data is serialized only when
+     * another extractor needs it.
+     *
+     * @param key      parser kind of the node
+     * @param document the node, as the document of the parser kind
+     * @param data     serialize the node
+     * @return
+     */
+    public static ExtractContext of(Object key, Object document, Supplier<String> data) {
+        ExtractContext context = new ExtractContext(null);
+        context.dataSupplier = data;
+        context.documents.put(key, document);
+        return context;
+    }
+
+    /**
+     * the raw data of this document
+     *
+     * @return
+     */
+    public String getData() {
+        if (dataSupplier != null) {
+            data = dataSupplier.get();
+            dataSupplier = null;
+        } else if (data == null && isBinary()) {
+            try {
+                data = new String(bytes != null ? bytes : Files.readAllBytes(path), charset);
+            } catch (IOException e) {
+                throw new ExtractException(e);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * whether the data is bytes or a file, which parsers should read by {@link #openStream()}
+     *
+     * @return
+     */
+    public boolean isBinary() {
+        return bytes != null || path != null;
+    }
+
+    /**
+     * charset of the binary data, null if the data is a string
+     *
+     * @return
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * open a new stream of the binary data, the caller must close it.
+     *
+     * @return
+     * @throws IOException
+     */
+    public InputStream openStream() throws IOException {
+        Validate.isTrue(isBinary(), "data is not binary!");
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        return new BufferedInputStream(Files.newInputStream(path));
+    }
+
+    /**
+     * get the document of the given parser kind if it is parsed or set, null otherwise.
+     *
+     * @param key parser kind
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getDocument(Object key) {
+        return (T) documents.get(key);
+    }
+
+    /**
+     * get the document parsed by the given parser kind, parse and cache it on first use.
+     *
+     * @param key    parser kind, extractors with the same key must build the same document
+     * @param parser build the document from this context
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getDocument(Object key, Function<ExtractContext, T> parser) {
+        Object document = documents.get(key);
+        if (document == null) {
+            document = parser.apply(this);
+            documents.put(key, document);
+        }
+        return (T) document;
+    }
+}
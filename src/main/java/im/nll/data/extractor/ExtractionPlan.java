@@ -0,0 +1,479 @@
+package im.nll.data.extractor;
+
+import im.nll.data.extractor.exception.ExtractException;
+import im.nll.data.extractor.utils.Logs;
+import im.nll.data.extractor.utils.Validate;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * compiled extract rules.
+ * <p>
+ * a plan is immutable and does not hold any document, so it can be compiled once by
+ * {@link Extractors#compile(im.nll.data.extractor.rule.ExtractRules)} or {@link Extractors#compile()}
+ * and shared by all threads, as long as the extractors and filters in it are thread-safe.
+ * </p>
+ * <p>
+ * a {@link #parallel()} plan extracts the split records of one document concurrently,
+ * the output keeps the order of the records.
+ * </p>
+ *
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/17 下午8:14
+ */
+public final class ExtractionPlan {
+    private static final Logger LOGGER = Logs.get();
+    private final ListableExtractor splitExtractor;
+    private final Map<String, List<Extractor>> extractorsMap;
+    private final Map<String, List<Filter>> filtersMap;
+    private final List<Filter> beforeFilter;
+    private final List<Filter> afterFilter;
+    private final Executor executor;
+
+    ExtractionPlan(ListableExtractor splitExtractor, Map<String, List<Extractor>> extractorsMap,
+                   Map<String, List<Filter>> filtersMap, List<Filter> beforeFilter, List<Filter> afterFilter,
+                   Executor executor) {
+        this.splitExtractor = splitExtractor;
+        this.extractorsMap = copyOf(extractorsMap);
+        this.filtersMap = copyOf(filtersMap);
+        this.beforeFilter = Collections.unmodifiableList(new ArrayList<>(beforeFilter));
+        this.afterFilter = Collections.unmodifiableList(new ArrayList<>(afterFilter));
+        this.executor = executor;
+    }
+
+    private ExtractionPlan(ExtractionPlan plan, Executor executor) {
+        this.splitExtractor = plan.splitExtractor;
+        this.extractorsMap = plan.extractorsMap;
+        this.filtersMap = plan.filtersMap;
+        this.beforeFilter = plan.beforeFilter;
+        this.afterFilter = plan.afterFilter;
+        this.executor = executor;
+    }
+
+    /**
+     * return a plan which extracts split records in the common {@link ForkJoinPool}.
+     *
+     * @return
+     */
+    public ExtractionPlan parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * return a plan which extracts split records in the given executor.
+     * the extractors and filters of the plan must be thread-safe.
+     *
+     * @param executor
+     * @return
+     */
+    public ExtractionPlan parallel(Executor executor) {
+        Validate.notNull(executor, "executor can't be null!");
+        return new ExtractionPlan(this, executor);
+    }
+
+    /**
+     * extract data as a map.
+     *
+     * @param html
+     * @return
+     */
+    public Map<String, String> asMap(String html) {
+        return asMap(ExtractContext.of(html));
+    }
+
+    /**
+     * extract data of the context as a map, the context can be bytes or a file.
+     *
+     * @param context
+     * @return
+     */
+    public Map<String, String> asMap(ExtractContext context) {
+        return extractMap(context);
+    }
+
+    /**
+     * extract data to a map list. the plan must have a split extractor.
+     *
+     * @param html
+     * @return
+     */
+    public List<Map<String, String>> asMapList(String html) {
+        return asMapList(ExtractContext.of(html));
+    }
+
+    /**
+     * extract data of the context to a map list, see {@link #asMapList(String)}.
+     *
+     * @param context
+     * @return
+     */
+    public List<Map<String, String>> asMapList(ExtractContext context) {
+        return extractRecords(split(context), this::extractMap);
+    }
+
+    /**
+     * convert extract data to bean.
+     *
+     * @param html
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public <T> T asBean(String html, Class<T> clazz) {
+        return asBean(ExtractContext.of(html), clazz);
+    }
+
+    /**
+     * convert extract data of the context to bean, see {@link #asBean(String, Class)}.
+     *
+     * @param context
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public <T> T asBean(ExtractContext context, Class<T> clazz) {
+        return extractBean(context, clazz);
+    }
+
+    /**
+     * extract data as a bean list. the plan must have a split extractor.
+     *
+     * @param html
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public <T> List<T> asBeanList(String html, Class<T> clazz) {
+        return asBeanList(ExtractContext.of(html), clazz);
+    }
+
+    /**
+     * extract data of the context as a bean list, see {@link #asBeanList(String, Class)}.
+     *
+     * @param context
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public <T> List<T> asBeanList(ExtractContext context, Class<T> clazz) {
+        return extractRecords(split(context), record -> extractBean(record, clazz));
+    }
+
+    /**
+     * extract data to maps lazily, a record is split and extracted only when the next map is asked for.
+     * the plan must have a split extractor. the iterator is {@link Closeable}, close it to release the split
+     * input when the records are not all read. see {@link Extractors#iterator()} for the split extractors
+     * which don't parse the whole document.
+     *
+     * @param html
+     * @return
+     */
+    public Iterator<Map<String, String>> iterator(String html) {
+        return iterator(ExtractContext.of(html));
+    }
+
+    /**
+     * extract data of the context to maps lazily, see {@link #stream(String)}.
+     *
+     * @param context
+     * @return
+     */
+    public Iterator<Map<String, String>> iterator(ExtractContext context) {
+        return iterateRecords(context, this::extractMap);
+    }
+
+    /**
+     * extract data to beans lazily, a record is split and extracted only when the next bean is asked for.
+     * the plan must have a split extractor.
+     *
+     * @param html
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public <T> Iterator<T> iterator(String html, Class<T> clazz) {
+        return iterator(ExtractContext.of(html), clazz);
+    }
+
+    /**
+     * extract data of the context to beans lazily, see {@link #iterator(String, Class)}.
+     *
+     * @param context
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public <T> Iterator<T> iterator(ExtractContext context, Class<T> clazz) {
+        return iterateRecords(context, record -> extractBean(record, clazz));
+    }
+
+    /**
+     * extract data as a sequential stream of maps, see {@link #iterator(String)}.
+     * the stream closes the split input, such as a file read by {@link im.nll.data.extractor.impl.JSONStreamExtractor},
+     * use it in a try-with-resources block when the records are not all read, e.g. with limit or findFirst.
+     *
+     * @param html
+     * @return
+     */
+    public Stream<Map<String, String>> stream(String html) {
+        return toStream(iterator(html));
+    }
+
+    /**
+     * extract data of the context as a sequential stream of maps, see {@link #stream(String)}.
+     *
+     * @param context
+     * @return
+     */
+    public Stream<Map<String, String>> stream(ExtractContext context) {
+        return toStream(iterator(context));
+    }
+
+    /**
+     * extract data as a sequential stream of beans, see {@link #iterator(String, Class)} and {@link #stream(String)}.
+     *
+     * @param html
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public <T> Stream<T> stream(String html, Class<T> clazz) {
+        return toStream(iterator(html, clazz));
+    }
+
+    /**
+     * extract data of the context as a sequential stream of beans, see {@link #stream(String, Class)}.
+     *
+     * @param context
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public <T> Stream<T> stream(ExtractContext context, Class<T> clazz) {
+        return toStream(iterator(context, clazz));
+    }
+
+    //------------ internal --------------//
+
+    List<ExtractContext> split(ExtractContext context) {
+        Validate.notNull(splitExtractor, "must split first!");
+        return splitExtractor.split(context);
+    }
+
+    /**
+     * split the records lazily and apply the function to each of them in the caller thread.
+     *
+     * @param context
+     * @param function
+     * @param <R>
+     * @return
+     */
+    <R> Iterator<R> iterateRecords(ExtractContext context, Function<ExtractContext, R> function) {
+        Validate.notNull(splitExtractor, "must split first!");
+        Iterator<ExtractContext> records = splitExtractor.splitIterator(context);
+        return new RecordIterator<>(records, function);
+    }
+
+    /**
+     * the stream closes the iterator when it is {@link Closeable}.
+     *
+     * @param iterator
+     * @param <R>
+     * @return
+     */
+    static <R> Stream<R> toStream(Iterator<R> iterator) {
+        Stream<R> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+        if (iterator instanceof Closeable) {
+            stream = stream.onClose(() -> close((Closeable) iterator));
+        }
+        return stream;
+    }
+
+    private static void close(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            throw new ExtractException(e);
+        }
+    }
+
+    /**
+     * applies the function to the split records, closing it closes the records when they are closeable.
+     */
+    private static final class RecordIterator<R> implements Iterator<R>, Closeable {
+        private final Iterator<ExtractContext> records;
+        private final Function<ExtractContext, R> function;
+
+        private RecordIterator(Iterator<ExtractContext> records, Function<ExtractContext, R> function) {
+            this.records = records;
+            this.function = function;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return records.hasNext();
+        }
+
+        @Override
+        public R next() {
+            return function.apply(records.next());
+        }
+
+        @Override
+        public void close() {
+            if (records instanceof Closeable) {
+                ExtractionPlan.close((Closeable) records);
+            }
+        }
+    }
+
+    /**
+     * apply the function to every record, in the executor of the plan if it is parallel.
+     * records are processed in chunks and the results keep the order of the records.
+     *
+     * @param records
+     * @param function
+     * @param <R>
+     * @return
+     */
+    <R> List<R> extractRecords(List<ExtractContext> records, Function<ExtractContext, R> function) {
+        if (executor == null || records.size() < 2) {
+            List<R> results = new ArrayList<>(records.size());
+            for (ExtractContext record : records) {
+                results.add(function.apply(record));
+            }
+            return results;
+        }
+        List<ExtractContext> recordList = records instanceof RandomAccess ? records : new ArrayList<>(records);
+        int size = recordList.size();
+        int chunkSize = Math.max(1, size / (Runtime.getRuntime().availableProcessors() * 4));
+        List<CompletableFuture<List<R>>> futures = new ArrayList<>(size / chunkSize + 1);
+        for (int from = 0; from < size; from += chunkSize) {
+            List<ExtractContext> chunk = recordList.subList(from, Math.min(from + chunkSize, size));
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                List<R> results = new ArrayList<>(chunk.size());
+                for (ExtractContext record : chunk) {
+                    results.add(function.apply(record));
+                }
+                return results;
+            }, executor));
+        }
+        List<R> results = new ArrayList<>(size);
+        try {
+            for (CompletableFuture<List<R>> future : futures) {
+                results.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ExtractException(cause);
+        }
+        return results;
+    }
+
+    <T> T extractBean(ExtractContext context, Class<T> clazz) {
+        // only support String type
+        if (clazz.equals(String.class)) {
+            return (T) new String(context.getData());
+        }
+        BeanBinder binder = BeanBinder.of(clazz);
+        T entity = clazz.cast(binder.create());
+        Map<String, Object> embeddables = new HashMap<String, Object>();
+        for (Map.Entry<String, List<Extractor>> one : extractorsMap.entrySet()) {
+            String name = one.getKey();
+            String result = extractField(name, one.getValue(), context);
+            try {
+                //process embeddable in the binder
+                binder.property(name).set(entity, result, embeddables);
+            } catch (Exception e) {
+                LOGGER.error("convert to bean error! can't set '{}' with '{}'", name, result, e);
+            }
+        }
+        return entity;
+    }
+
+    Map<String, String> extractMap(ExtractContext context) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Extractor>> one : extractorsMap.entrySet()) {
+            String name = one.getKey();
+            String result = extractField(name, one.getValue(), context);
+            try {
+                map.put(name, result);
+            } catch (Exception e) {
+                LOGGER.error("convert to map error! can't set '{}' with '{}'", name, result, e);
+            }
+        }
+        return map;
+    }
+
+    String extractField(String name, ExtractContext context) {
+        return extractField(name, extractorsMap.get(name), context);
+    }
+
+    /**
+     * run the extractor chain of a field. the first extractor reads from the document context,
+     * so all fields of one document share the parsed document.
+     *
+     * @param name
+     * @param extractors
+     * @param context
+     * @return
+     */
+    String extractField(String name, List<Extractor> extractors, ExtractContext context) {
+        Iterator<Extractor> iterator = extractors.iterator();
+        String result = iterator.hasNext() ? iterator.next().extract(context) : context.getData();
+        while (iterator.hasNext()) {
+            result = iterator.next().extract(result);
+        }
+        result = filterBefore(result);
+        result = filter(name, result);
+        result = filterAfter(result);
+        return result;
+    }
+
+    private String filter(String name, String result) {
+        List<Filter> filters = filtersMap.getOrDefault(name, Collections.emptyList());
+        for (Filter filter : filters) {
+            result = filter.process(result);
+        }
+        return result;
+    }
+
+    private String filterBefore(String result) {
+        for (Filter filter : beforeFilter) {
+            result = filter.process(result);
+        }
+        return result;
+    }
+
+    private String filterAfter(String result) {
+        for (Filter filter : afterFilter) {
+            result = filter.process(result);
+        }
+        return result;
+    }
+
+    private static <V> Map<String, List<V>> copyOf(Map<String, List<V>> map) {
+        Map<String, List<V>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, List<V>> one : map.entrySet()) {
+            copy.put(one.getKey(), Collections.unmodifiableList(new ArrayList<>(one.getValue())));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+}
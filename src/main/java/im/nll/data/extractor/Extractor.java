@@ -8,4 +8,15 @@ package im.nll.data.extractor;
 @FunctionalInterface
 public interface Extractor {
     String extract(String data);
+
+    /**
+     * extract from a document context, extractors which parse the data should share the parsed
+     * document through {@link ExtractContext#getDocument}.
+     *
+     * @param context
+     * @return
+     */
+    default String extract(ExtractContext context) {
+        return extract(context.getData());
+    }
 }
@@ -1,19 +1,26 @@
 package im.nll.data.extractor;
 
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.mapper.MappingProvider;
 import im.nll.data.extractor.entity.EntityExtractor;
 import im.nll.data.extractor.entity.EntityListExtractor;
 import im.nll.data.extractor.impl.*;
 import im.nll.data.extractor.parser.ExtractorParser;
 import im.nll.data.extractor.rule.ExtractRule;
+import im.nll.data.extractor.rule.ExtractRules;
 import im.nll.data.extractor.utils.Logs;
-import im.nll.data.extractor.utils.Reflect;
-import im.nll.data.extractor.utils.StringUtils;
 import im.nll.data.extractor.utils.Validate;
 import org.slf4j.Logger;
 
-import java.lang.reflect.Field;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
  * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
@@ -23,16 +30,24 @@ import java.util.*;
 public class Extractors {
     private static final Logger LOGGER = Logs.get();
     private static final String DEFAULT_FIELD = "_default_field_";
-    private String html;
-    private List<String> htmlList;
+    private ExtractContext context;
+    private List<ExtractContext> recordList;
+    private ListableExtractor splitExtractor;
     private Map<String, List<Extractor>> extractorsMap = new LinkedHashMap<>();
     private Map<String, List<Filter>> filtersMap = new LinkedHashMap();
     private List<Filter> beforeFilter = new LinkedList<>();
     private List<Filter> afterFilter = new LinkedList<>();
     private String prevField;
+    private Executor executor;
+    private JsonProvider jsonProvider;
+    private MappingProvider mappingProvider;
 
     public Extractors(String html) {
-        this.html = html;
+        this(ExtractContext.of(html));
+    }
+
+    private Extractors(ExtractContext context) {
+        this.context = context;
     }
 
     /**
@@ -45,6 +60,158 @@ public class Extractors {
         return new Extractors(html);
     }
 
+    /**
+     * set the bytes to extract. parsers read the bytes directly, they are decoded to a string
+     * only for the extractors which need it.
+     *
+     * @param data
+     * @param charset
+     * @return
+     */
+    public static Extractors on(byte[] data, Charset charset) {
+        return new Extractors(ExtractContext.of(data, charset));
+    }
+
+    /**
+     * set the stream to extract, the stream is read to the end and not closed.
+     *
+     * @param in
+     * @param charset
+     * @return
+     * @see #on(byte[], Charset)
+     */
+    public static Extractors on(InputStream in, Charset charset) {
+        return new Extractors(ExtractContext.of(in, charset));
+    }
+
+    /**
+     * set the UTF-8 file to extract.
+     *
+     * @param path
+     * @return
+     * @see #on(Path, Charset)
+     */
+    public static Extractors on(Path path) {
+        return on(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * set the file to extract. parsers read the file directly, every parser opens it again.
+     *
+     * @param path
+     * @param charset
+     * @return
+     */
+    public static Extractors on(Path path, Charset charset) {
+        return new Extractors(ExtractContext.of(path, charset));
+    }
+
+    /**
+     * compile extract rules to a plan, which can be reused for all documents.
+     *
+     * @param extractRules
+     * @return
+     */
+    public static ExtractionPlan compile(ExtractRules extractRules) {
+        Extractors extractors = new Extractors((String) null);
+        if (extractRules.getSplit() != null) {
+            extractors.splitExtractor = parseListable(extractRules.getSplit().getExtractor());
+        }
+        if (extractRules.getExtractRules() != null) {
+            extractors.extract(extractRules.getExtractRules());
+        }
+        return extractors.compile();
+    }
+
+    /**
+     * compile the extractors and filters set on this to a plan, which can be reused for all documents.
+     * the html to extract is not part of the plan.
+     *
+     * @return
+     */
+    public ExtractionPlan compile() {
+        if (jsonProvider == null && mappingProvider == null) {
+            return new ExtractionPlan(splitExtractor, extractorsMap, filtersMap, beforeFilter, afterFilter, executor);
+        }
+        Map<String, List<Extractor>> configured = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Extractor>> entry : extractorsMap.entrySet()) {
+            List<Extractor> extractors = new LinkedList<>();
+            for (Extractor extractor : entry.getValue()) {
+                extractors.add(configureJson(extractor));
+            }
+            configured.put(entry.getKey(), extractors);
+        }
+        return new ExtractionPlan((ListableExtractor) configureJson(splitExtractor), configured, filtersMap,
+                beforeFilter, afterFilter, executor);
+    }
+
+    /**
+     * set the json provider of all json extractors, such as {@link LazyJsonProvider}.
+     *
+     * @param jsonProvider
+     * @return
+     * @see JSONPathExtractor#jsonProvider(JsonProvider)
+     */
+    public Extractors jsonProvider(JsonProvider jsonProvider) {
+        this.jsonProvider = jsonProvider;
+        return this;
+    }
+
+    /**
+     * set the mapping provider of all json extractors.
+     *
+     * @param mappingProvider
+     * @return
+     * @see JSONPathExtractor#mappingProvider(MappingProvider)
+     */
+    public Extractors mappingProvider(MappingProvider mappingProvider) {
+        this.mappingProvider = mappingProvider;
+        return this;
+    }
+
+    /**
+     * the json extractors of the plan are configured copies, the extractors set on this may be shared.
+     *
+     * @param extractor
+     * @return
+     */
+    private Extractor configureJson(Extractor extractor) {
+        if (!(extractor instanceof JSONPathExtractor)) {
+            return extractor;
+        }
+        JSONPathExtractor jsonExtractor = ((JSONPathExtractor) extractor).copy();
+        if (jsonProvider != null) {
+            jsonExtractor.jsonProvider(jsonProvider);
+        }
+        if (mappingProvider != null) {
+            jsonExtractor.mappingProvider(mappingProvider);
+        }
+        return jsonExtractor;
+    }
+
+    /**
+     * extract split records concurrently in the common {@link ForkJoinPool}.
+     * the result list keeps the order of the records.
+     *
+     * @return
+     */
+    public Extractors parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * extract split records concurrently in the given executor, the extractors and filters must be thread-safe.
+     * the result list keeps the order of the records.
+     *
+     * @param executor
+     * @return
+     */
+    public Extractors parallel(Executor executor) {
+        Validate.notNull(executor, "executor can't be null!");
+        this.executor = executor;
+        return this;
+    }
+
     /**
      * extract data by extract rule
      *
@@ -221,14 +388,14 @@ public class Extractors {
 
 
     /**
-     * split html use listable extractor
+     * split html use listable extractor. the records are split when they are first used.
      *
      * @param listableExtractor
      * @return
      */
     public Extractors split(Extractor listableExtractor) {
-        Validate.isTrue(listableExtractor instanceof ListableExtractor, "split parameter must implement ListableExtractor." + listableExtractor.getClass().getSimpleName() + " can't be used.");
-        this.htmlList = ((ListableExtractor) listableExtractor).extractList(html);
+        this.splitExtractor = toListable(listableExtractor);
+        this.recordList = null;
         return this;
     }
 
@@ -241,6 +408,7 @@ public class Extractors {
      * <li>regex : {@link RegexExtractor}</li>
      * <li>string : {@link StringRangeExtractor}</li>
      * <li>json:{@link JSONPathExtractor} </li>
+     * <li>jsonStream:{@link JSONStreamExtractor} </li>
      * </p>
      *
      * @param listExtractorString
@@ -252,27 +420,38 @@ public class Extractors {
         return this;
     }
 
+    private static ListableExtractor parseListable(String listExtractorString) {
+        return toListable(ExtractorParser.parse(listExtractorString));
+    }
+
+    private static ListableExtractor toListable(Extractor listableExtractor) {
+        Validate.isTrue(listableExtractor instanceof ListableExtractor, "split parameter must implement ListableExtractor." + listableExtractor.getClass().getSimpleName() + " can't be used.");
+        return (ListableExtractor) listableExtractor;
+    }
+
+    private List<ExtractContext> records(ExtractionPlan plan) {
+        if (recordList == null) {
+            recordList = plan.split(context);
+        }
+        return recordList;
+    }
+
     /**
      * extract data as string
      *
      * @return
      */
     public String asString() {
-        String result = html;
+        String result;
         List<Extractor> extractors = extractorsMap.get(DEFAULT_FIELD);
         if (extractors == null) {
-            if (htmlList != null) {
+            if (splitExtractor != null) {
                 result = asMapList().toString();
             } else {
                 result = asMap().toString();
             }
         } else {
-            for (Extractor extractor : extractors) {
-                result = extractor.extract(result);
-            }
-            result = filterBefore(result);
-            result = filter(DEFAULT_FIELD, result);
-            result = filterAfter(result);
+            result = compile().extractField(DEFAULT_FIELD, context);
         }
         return result;
     }
@@ -283,21 +462,16 @@ public class Extractors {
      * @return
      */
     public String asJSONString() {
-        String result = html;
+        String result;
         List<Extractor> extractors = extractorsMap.get(DEFAULT_FIELD);
         if (extractors == null) {
-            if (htmlList != null) {
+            if (splitExtractor != null) {
                 result = JsonPath.parse(asMapList()).jsonString();
             } else {
                 result = JsonPath.parse(asMap()).jsonString();
             }
         } else {
-            for (Extractor extractor : extractors) {
-                result = extractor.extract(result);
-            }
-            result = filterBefore(result);
-            result = filter(DEFAULT_FIELD, result);
-            result = filterAfter(result);
+            result = compile().extractField(DEFAULT_FIELD, context);
         }
         return result;
     }
@@ -309,22 +483,15 @@ public class Extractors {
      */
     public List<String> asStringList(String separator) {
         List<String> stringList = new LinkedList<>();
-        if (htmlList != null) {
-            for (String input : htmlList) {
+        if (splitExtractor != null) {
+            ExtractionPlan plan = compile();
+            for (ExtractContext record : records(plan)) {
                 if (extractorsMap == null || extractorsMap.isEmpty()) {
-                    stringList.add(input);
+                    stringList.add(record.getData());
                 } else {
                     StringBuffer stringBuffer = new StringBuffer();
                     for (Map.Entry<String, List<Extractor>> one : extractorsMap.entrySet()) {
-                        String name = one.getKey();
-                        List<Extractor> extractors = one.getValue();
-                        String result = html;
-                        for (Extractor extractor : extractors) {
-                            result = extractor.extract(result);
-                        }
-                        result = filterBefore(result);
-                        result = filter(name, result);
-                        result = filterAfter(result);
+                        String result = plan.extractField(one.getKey(), context);
                         stringBuffer.append(result).append(separator);
                     }
                     int length = stringBuffer.length();
@@ -354,7 +521,7 @@ public class Extractors {
      * @return
      */
     public Map<String, String> asMap() {
-        return extractMap(html);
+        return compile().extractMap(context);
     }
 
 
@@ -365,12 +532,8 @@ public class Extractors {
      * @return
      */
     public List<Map<String, String>> asMapList() {
-        Validate.notNull(htmlList, "must split first!");
-        List<Map<String, String>> mapList = new LinkedList<>();
-        for (String input : htmlList) {
-            mapList.add(extractMap(input));
-        }
-        return mapList;
+        ExtractionPlan plan = compile();
+        return plan.extractRecords(records(plan), plan::extractMap);
     }
 
     /**
@@ -379,7 +542,7 @@ public class Extractors {
      * @return
      */
     public <T> T asBean(Class<T> clazz) {
-        return extractBean(html, clazz);
+        return compile().extractBean(context, clazz);
     }
 
     /**
@@ -389,12 +552,57 @@ public class Extractors {
      * @return
      */
     public <T> List<T> asBeanList(Class<T> clazz) {
-        Validate.notNull(htmlList, "must split first!");
-        List<T> entityList = new LinkedList<>();
-        for (String input : htmlList) {
-            entityList.add(extractBean(input, clazz));
-        }
-        return entityList;
+        ExtractionPlan plan = compile();
+        return plan.extractRecords(records(plan), record -> plan.extractBean(record, clazz));
+    }
+
+    /**
+     * extract data to maps lazily. must split html by {@link #split(Extractor)} before call this method.
+     * records are split and extracted one by one when the next map is asked for, so they are never all in memory.
+     * <p>only the streaming split extractors read the input one record at a time: {@link JSONStreamExtractor},
+     * and {@link XPathExtractor} with a path of element names such as /feed/item or //item. other split
+     * extractors parse the whole document first, so the document must still fit in memory.</p>
+     *
+     * @return
+     */
+    public Iterator<Map<String, String>> iterator() {
+        ExtractionPlan plan = compile();
+        return plan.iterateRecords(context, plan::extractMap);
+    }
+
+    /**
+     * extract data to beans lazily. must split html by {@link #split(Extractor)} before call this method.
+     *
+     * @param clazz
+     * @param <T>
+     * @return
+     * @see #iterator()
+     */
+    public <T> Iterator<T> iterator(Class<T> clazz) {
+        ExtractionPlan plan = compile();
+        return plan.iterateRecords(context, record -> plan.extractBean(record, clazz));
+    }
+
+    /**
+     * extract data as a sequential stream of maps, see {@link #iterator()}.
+     * use it in a try-with-resources block when the records are not all read, so the split input is closed,
+     * see {@link ExtractionPlan#stream(String)}.
+     *
+     * @return
+     */
+    public Stream<Map<String, String>> stream() {
+        return ExtractionPlan.toStream(iterator());
+    }
+
+    /**
+     * extract data as a sequential stream of beans, see {@link #iterator(Class)} and {@link #stream()}.
+     *
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public <T> Stream<T> stream(Class<T> clazz) {
+        return ExtractionPlan.toStream(iterator(clazz));
     }
 
     //------------ custom process --------------//
@@ -407,7 +615,7 @@ public class Extractors {
      * @return
      */
     public <T> T asBean(EntityExtractor<T> entityExtractor) {
-        T entity = entityExtractor.extract(html);
+        T entity = entityExtractor.extract(context.getData());
         return entity;
     }
 
@@ -420,13 +628,8 @@ public class Extractors {
      * @return
      */
     public <T> List<T> asBeanList(EntityExtractor<T> entityExtractor) {
-        Validate.notNull(htmlList, "must split first!");
-        List<T> entityList = new LinkedList<>();
-        for (String input : htmlList) {
-            T entity = entityExtractor.extract(input);
-            entityList.add(entity);
-        }
-        return entityList;
+        ExtractionPlan plan = compile();
+        return plan.extractRecords(records(plan), record -> entityExtractor.extract(record.getData()));
     }
 
     /**
@@ -437,97 +640,11 @@ public class Extractors {
      * @return
      */
     public <T> List<T> asBeanList(EntityListExtractor<T> entityListExtractor) {
-        return entityListExtractor.extractList(html);
+        return entityListExtractor.extractList(context.getData());
     }
     //------------ custom process --------------//
 
 
-    //------------ internal --------------//
-
-    private <T> T extractBean(String html, Class<T> clazz) {
-        // only support String type
-        if (clazz.equals(String.class)) {
-            return (T) new String(html);
-        }
-        T entity = Reflect.on(clazz).create().get();
-        Map<String, Object> embeddables = new HashMap<String, Object>();
-        for (Map.Entry<String, List<Extractor>> one : extractorsMap.entrySet()) {
-            String name = one.getKey();
-            List<Extractor> extractors = one.getValue();
-            String result = html;
-            for (Extractor extractor : extractors) {
-                result = extractor.extract(result);
-            }
-            result = filterBefore(result);
-            result = filter(name, result);
-            result = filterAfter(result);
-            try {
-                //process embeddable
-                if (name.contains(".")) {
-                    String fieldName = StringUtils.substringBefore(name, ".");
-                    String embeddableFieldName = StringUtils.substringAfter(name, ".");
-                    Object embeddable = embeddables.get(fieldName);
-                    Field field = Reflect.on(entity).field0(fieldName);
-                    if (embeddable == null) {
-                        embeddable = Reflect.on(field.getType()).create().get();
-                        embeddables.put(fieldName, embeddable);
-                    }
-                    Reflect.on(embeddable).set(embeddableFieldName, result);
-                    Reflect.on(entity).set(fieldName, embeddable);
-                } else {
-                    Reflect.on(entity).set(name, result);
-                }
-            } catch (Exception e) {
-                LOGGER.error("convert to bean error! can't set '{}' with '{}'", name, result, e);
-            }
-        }
-        return entity;
-    }
-
-    private Map<String, String> extractMap(String html) {
-        Map<String, String> map = new LinkedHashMap<>();
-        for (Map.Entry<String, List<Extractor>> one : extractorsMap.entrySet()) {
-            String name = one.getKey();
-            List<Extractor> extractors = one.getValue();
-            String result = html;
-            for (Extractor extractor : extractors) {
-                result = extractor.extract(result);
-            }
-            result = filterBefore(result);
-            result = filter(name, result);
-            result = filterAfter(result);
-            try {
-                map.put(name, result);
-            } catch (Exception e) {
-                LOGGER.error("convert to map error! can't set '{}' with '{}'", name, result, e);
-            }
-        }
-        return map;
-    }
-
-    private String filter(String name, String result) {
-        List<Filter> filters = filtersMap.getOrDefault(name, new LinkedList<>());
-        for (Filter filter : filters) {
-            result = filter.process(result);
-        }
-        return result;
-    }
-
-    private String filterBefore(String result) {
-        for (Filter filter : beforeFilter) {
-            result = filter.process(result);
-        }
-        return result;
-    }
-
-    private String filterAfter(String result) {
-        for (Filter filter : afterFilter) {
-            result = filter.process(result);
-        }
-        return result;
-    }
-
-    //------------ internal --------------//
 
 
     /**
@@ -618,6 +735,26 @@ public class Extractors {
         return new JSONPathExtractor(query);
     }
 
+    /**
+     * return a streaming json split extractor.
+     *
+     * @param query
+     * @return
+     */
+    public static JSONStreamExtractor jsonStream(String query) {
+        return new JSONStreamExtractor(query);
+    }
+
+    /**
+     * return a streaming html extractor, which doesn't build a dom.
+     *
+     * @param query
+     * @return
+     */
+    public static HtmlStreamExtractor htmlStream(String query) {
+        return new HtmlStreamExtractor(query);
+    }
+
     /**
      * return a xpath extractor.
      *
@@ -638,6 +775,17 @@ public class Extractors {
         return new RegexExtractor(query);
     }
 
+    /**
+     * return a regex extractor.
+     *
+     * @param query
+     * @param group the group of match to extract
+     * @return
+     */
+    public static RegexExtractor regex(String query, int group) {
+        return new RegexExtractor(query, group);
+    }
+
     /**
      * return a string range extractor.
      *
@@ -1,5 +1,7 @@
 package im.nll.data.extractor;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -11,4 +13,44 @@ import java.util.List;
  */
 public interface ListableExtractor extends Extractor {
     List<String> extractList(String data);
+
+    /**
+     * extract list from a document context.
+     *
+     * @param context
+     * @return
+     * @see Extractor#extract(ExtractContext)
+     */
+    default List<String> extractList(ExtractContext context) {
+        return extractList(context.getData());
+    }
+
+    /**
+     * split the document to records. extractors which parse the data should keep the matched nodes
+     * in the records, so the field extractors of the same parser kind don't parse them again.
+     *
+     * @param context
+     * @return
+     * @see ExtractContext#of(Object, Object, java.util.function.Supplier)
+     */
+    default List<ExtractContext> split(ExtractContext context) {
+        List<String> strings = extractList(context);
+        List<ExtractContext> records = new ArrayList<>(strings.size());
+        for (String one : strings) {
+            records.add(ExtractContext.of(one));
+        }
+        return records;
+    }
+
+    /**
+     * split the document to records lazily, the next record is found only when it is asked for.
+     * extractors which can find records one by one should override it, the default splits all records at once.
+     *
+     * @param context
+     * @return
+     * @see #split(ExtractContext)
+     */
+    default Iterator<ExtractContext> splitIterator(ExtractContext context) {
+        return split(context).iterator();
+    }
 }
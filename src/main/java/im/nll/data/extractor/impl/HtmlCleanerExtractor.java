@@ -1,5 +1,6 @@
 package im.nll.data.extractor.impl;
 
+import im.nll.data.extractor.ExtractContext;
 import im.nll.data.extractor.ListableExtractor;
 import im.nll.data.extractor.annotation.Name;
 import im.nll.data.extractor.exception.ExtractException;
@@ -8,7 +9,10 @@ import im.nll.data.extractor.utils.TypeUtils;
 import org.htmlcleaner.*;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -19,24 +23,41 @@ import java.util.List;
 @Name("htmlcleaner")
 public class HtmlCleanerExtractor implements ListableExtractor {
     private static final Logger logger = Logs.get();
+    /**
+     * the cleaner is configured once and shared, the state of a clean is kept in the call.
+     */
+    private static final HtmlCleaner HTML_CLEANER = createHtmlCleaner();
+    /**
+     * the serializer only reads the properties, and caches indents in a synchronized method.
+     */
+    private static final HtmlSerializer HTML_SERIALIZER = new PrettyHtmlSerializer(HTML_CLEANER.getProperties());
     private String xpath;
+    /**
+     * the compiled xpath, thread-safe and reused for every document.
+     */
+    private XPather xpather;
 
     public HtmlCleanerExtractor(String xpath) {
         this.xpath = xpath;
+        this.xpather = XPather.compile(xpath);
     }
 
     @Override
     public String extract(String content) {
+        return extract(ExtractContext.of(content));
+    }
+
+    @Override
+    public String extract(ExtractContext context) {
         String result = "";
         try {
-            HtmlCleaner htmlCleaner = getHtmlCleaner();
-            TagNode node = htmlCleaner.clean(content);
-            Object[] objects = node.evaluateXPath(xpath);
+            TagNode node = parse(context);
+            Object[] objects = xpather.evaluateAgainstNode(node);
             if (objects != null && objects.length > 0) {
-                result = wrap(objects[0], htmlCleaner);
+                result = wrap(objects[0]);
             } else {
                 logger.warn("not found content,xpath:{}", xpath);
-                logger.debug("content:{}", content);
+                logger.debug("content:{}", context.getData());
             }
         } catch (Exception e) {
             throw new ExtractException(e);
@@ -46,19 +67,23 @@ public class HtmlCleanerExtractor implements ListableExtractor {
 
     @Override
     public List<String> extractList(String content) {
+        return extractList(ExtractContext.of(content));
+    }
+
+    @Override
+    public List<String> extractList(ExtractContext context) {
         List<String> list = new ArrayList<>();
         try {
-            HtmlCleaner htmlCleaner = getHtmlCleaner();
-            TagNode node = htmlCleaner.clean(content);
-            Object[] objects = node.evaluateXPath(xpath);
+            TagNode node = parse(context);
+            Object[] objects = xpather.evaluateAgainstNode(node);
             if (objects != null && objects.length > 0) {
                 for (int i = 0; i < objects.length; i++) {
-                    list.add(wrap(objects[i], htmlCleaner));
+                    list.add(wrap(objects[i]));
                 }
                 return list;
             } else {
                 logger.warn("not found content,xpath:{}", xpath);
-                logger.debug("content:{}", content);
+                logger.debug("content:{}", context.getData());
             }
         } catch (Exception e) {
             throw new ExtractException(e);
@@ -66,23 +91,68 @@ public class HtmlCleanerExtractor implements ListableExtractor {
         return list;
     }
 
-    private HtmlCleaner getHtmlCleaner() {
+    /**
+     * split to the matched nodes. the records of tag nodes keep the node under a detached root,
+     * so paths of the field extractors start from the record, as they do on the cleaned record.
+     *
+     * @param context
+     * @return
+     */
+    @Override
+    public List<ExtractContext> split(ExtractContext context) {
+        List<ExtractContext> records = new ArrayList<>();
+        try {
+            TagNode node = parse(context);
+            Object[] objects = xpather.evaluateAgainstNode(node);
+            if (objects == null || objects.length == 0) {
+                logger.warn("not found content,xpath:{}", xpath);
+                logger.debug("content:{}", context.getData());
+                return records;
+            }
+            for (Object object : objects) {
+                if (object instanceof TagNode) {
+                    TagNode root = new TagNode("");
+                    root.setChildren(Collections.singletonList((TagNode) object));
+                    records.add(ExtractContext.of(HtmlCleanerExtractor.class, root, () -> wrap(object)));
+                } else {
+                    records.add(ExtractContext.of(wrap(object)));
+                }
+            }
+        } catch (Exception e) {
+            throw new ExtractException(e);
+        }
+        return records;
+    }
+
+    private TagNode parse(ExtractContext context) {
+        return context.getDocument(HtmlCleanerExtractor.class, this::clean);
+    }
+
+    private TagNode clean(ExtractContext context) {
+        if (!context.isBinary()) {
+            return HTML_CLEANER.clean(context.getData());
+        }
+        try (InputStream in = context.openStream()) {
+            return HTML_CLEANER.clean(in, context.getCharset().name());
+        } catch (IOException e) {
+            throw new ExtractException(e);
+        }
+    }
+
+    private static HtmlCleaner createHtmlCleaner() {
         HtmlCleaner htmlCleaner = new HtmlCleaner();
         htmlCleaner.getProperties().setUseCdataForScriptAndStyle(false);
         htmlCleaner.getProperties().setPruneTags("script,style");
         htmlCleaner.getProperties().setTreatUnknownTagsAsContent(true);
         htmlCleaner.getProperties().setOmitUnknownTags(true);
+        htmlCleaner.getProperties().setOmitXmlDeclaration(true);
         return htmlCleaner;
     }
 
-    private String wrap(Object text, HtmlCleaner htmlCleaner) {
+    private String wrap(Object text) {
         if (text != null) {
             if (text instanceof TagNode) {
-                final CleanerProperties cleanerProperties = htmlCleaner.getProperties();
-                cleanerProperties.setOmitXmlDeclaration(true);
-                final HtmlSerializer htmlSerializer = new PrettyHtmlSerializer(cleanerProperties);
-                final String html = htmlSerializer.getAsString((TagNode) text);
-                return html;
+                return HTML_SERIALIZER.getAsString((TagNode) text);
             } else {
                 return TypeUtils.castToString(text);
             }
@@ -0,0 +1,440 @@
+package im.nll.data.extractor.impl;
+
+import im.nll.data.extractor.ExtractContext;
+import im.nll.data.extractor.ListableExtractor;
+import im.nll.data.extractor.annotation.Name;
+import im.nll.data.extractor.utils.StringUtils;
+import im.nll.data.extractor.utils.Validate;
+import jodd.csselly.CSSelly;
+import jodd.csselly.Combinator;
+import jodd.csselly.CssSelector;
+import jodd.csselly.Selector;
+import jodd.csselly.selector.AttributeSelector;
+import jodd.lagarto.EmptyTagVisitor;
+import jodd.lagarto.LagartoParser;
+import jodd.lagarto.Tag;
+import jodd.lagarto.TagType;
+import jodd.lagarto.dom.HtmlImplicitClosingRules;
+import jodd.lagarto.dom.HtmlVoidRules;
+import jodd.lagarto.dom.LagartoDOMBuilder;
+import jodd.lagarto.dom.LagartoDomBuilderConfig;
+import jodd.util.StringPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * streaming html extractor, css selectors are matched on the tag events of the parser without building a dom.
+ * <p>
+ * the query is the same as {@link JerryExtractor}: 'css.text' or 'css.attr(name)', text is the default.
+ * a value is complete when its element is closed, {@link #extract(String)} stops parsing at the first complete
+ * value, so the fields at the top of a large page don't parse the rest of it.
+ * {@link #extract(ExtractContext, List)} extracts the first values of several extractors in one pass,
+ * it stops when all of them are found.
+ * </p>
+ * <p>
+ * only simple selectors are supported:
+ * <li>element, #id, .class and [attribute] selectors, such as 'meta[name=description]'</li>
+ * <li>descendant and child combinators, such as 'div.title > a'</li>
+ * <li>selector groups, such as 'h1, h2'</li>
+ * <p>
+ * void tags and implied end tags are closed by the same html rules as the dom builder, other broken html may
+ * be matched differently from {@link JerryExtractor}.
+ * </p>
+ *
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/18 上午3:10
+ */
+@Name("htmlStream")
+public class HtmlStreamExtractor implements ListableExtractor {
+    private final static String TYPE_TEXT = "text";
+    private static final HtmlVoidRules VOID_RULES = new HtmlVoidRules();
+    private static final HtmlImplicitClosingRules CLOSING_RULES = new HtmlImplicitClosingRules();
+    private static final LagartoDomBuilderConfig PARSER_CONFIG = new LagartoDOMBuilder().getConfig();
+    /**
+     * parsers reused by the thread, the buffers of a parser are kept between documents.
+     */
+    private static final ThreadLocal<LagartoParser> PARSERS = new ThreadLocal<>();
+    /**
+     * css selector
+     */
+    private final String query;
+    /**
+     * the attribute name, null for text.
+     */
+    private final String attribute;
+    /**
+     * selector groups, each is a chain of selectors joined by combinators.
+     */
+    private final List<CssSelector[]> chains;
+
+    public HtmlStreamExtractor(String query) {
+        String outType = StringUtils.substringAfterLast(query, ".");
+        String attribute = null;
+        if (outType.equalsIgnoreCase(TYPE_TEXT)) {
+            query = StringUtils.substringBeforeLast(query, ".text");
+        } else if (outType.matches("attr\\(\\S+\\)")) {
+            query = StringUtils.substringBeforeLast(query, "." + outType);
+            attribute = StringUtils.substringBetween(outType, "(", ")");
+        }
+        this.query = query;
+        this.attribute = attribute;
+        this.chains = compile(query);
+    }
+
+    private static List<CssSelector[]> compile(String query) {
+        List<CssSelector[]> chains = new ArrayList<>();
+        for (List<CssSelector> group : CSSelly.compile(query)) {
+            CssSelector[] chain = group.toArray(new CssSelector[0]);
+            for (int i = 0; i < chain.length; i++) {
+                CssSelector selector = chain[i];
+                if (i < chain.length - 1) {
+                    Combinator combinator = selector.getCombinator();
+                    Validate.isTrue(combinator == Combinator.DESCENDANT || combinator == Combinator.CHILD,
+                            "unsupported combinator '" + combinator.getSign() + "' for streaming. query:'" + query + "'");
+                }
+                for (int j = 0; j < selector.selectorsCount(); j++) {
+                    Validate.isTrue(selector.getSelector(j).getType() == Selector.Type.ATTRIBUTE,
+                            "unsupported selector '" + selector + "' for streaming. query:'" + query + "'");
+                }
+            }
+            chains.add(chain);
+        }
+        return chains;
+    }
+
+    @Override
+    public String extract(String data) {
+        return extract(ExtractContext.of(data));
+    }
+
+    @Override
+    public String extract(ExtractContext context) {
+        return extract(context, Collections.singletonList(this)).get(0);
+    }
+
+    @Override
+    public List<String> extractList(String data) {
+        return extractList(ExtractContext.of(data));
+    }
+
+    @Override
+    public List<String> extractList(ExtractContext context) {
+        StreamVisitor visitor = parse(context, Collections.singletonList(this), false);
+        List<String> strings = new LinkedList<>();
+        for (Match match : visitor.matches[0]) {
+            strings.add(match.value());
+        }
+        return strings;
+    }
+
+    /**
+     * extract the first value of every extractor in one pass, the parsing stops when all of them are found.
+     *
+     * @param context
+     * @param extractors
+     * @return the values in the order of the extractors, empty string if not found.
+     */
+    public static List<String> extract(ExtractContext context, List<HtmlStreamExtractor> extractors) {
+        StreamVisitor visitor = parse(context, extractors, true);
+        List<String> values = new ArrayList<>(extractors.size());
+        for (List<Match> matches : visitor.matches) {
+            values.add(matches.isEmpty() ? "" : matches.get(0).value());
+        }
+        return values;
+    }
+
+    private static StreamVisitor parse(ExtractContext context, List<HtmlStreamExtractor> extractors, boolean firstOnly) {
+        LagartoParser parser = PARSERS.get();
+        if (parser == null) {
+            parser = new LagartoParser(context.getData(), true);
+            parser.setConfig(PARSER_CONFIG);
+        } else {
+            PARSERS.remove();
+            parser.reset(context.getData());
+        }
+        StreamVisitor visitor = new StreamVisitor(parser, extractors, firstOnly);
+        try {
+            parser.parse(visitor);
+        } finally {
+            PARSERS.set(parser);
+        }
+        return visitor;
+    }
+
+    private static boolean matches(CssSelector selector, Tag tag, String name) {
+        String element = selector.getElement();
+        if (!element.equals(StringPool.STAR) && !element.equals(name)) {
+            return false;
+        }
+        for (int i = 0; i < selector.selectorsCount(); i++) {
+            AttributeSelector attributeSelector = (AttributeSelector) selector.getSelector(i);
+            int index = tag.getAttributeIndex(attributeSelector.getName());
+            if (index < 0) {
+                return false;
+            }
+            if (attributeSelector.getValue() == null) {
+                continue;
+            }
+            CharSequence value = tag.getAttributeValue(index);
+            if (value == null || !attributeSelector.getMatch().compare(value.toString(), attributeSelector.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * a matched element, the value is complete when the element is closed.
+     */
+    private static final class Match {
+        private final StringBuilder text;
+        private final String value;
+        private boolean complete;
+
+        private Match(StringBuilder text, String value) {
+            this.text = text;
+            this.value = value;
+            this.complete = text == null;
+        }
+
+        private String value() {
+            return text == null ? value : StringUtils.normalizeWhitespace(text);
+        }
+    }
+
+    /**
+     * an open element, matched[i][k] is whether the chain i matches to the selector k at this element,
+     * reached[i][k] is whether it matches at this element or an ancestor.
+     */
+    private static final class Frame {
+        private final String name;
+        private final boolean[][] matched;
+        private final boolean[][] reached;
+        private List<Match> texts;
+
+        private Frame(String name, boolean[][] matched, boolean[][] reached) {
+            this.name = name;
+            this.matched = matched;
+            this.reached = reached;
+        }
+    }
+
+    private static final class StreamVisitor extends EmptyTagVisitor {
+        private final LagartoParser parser;
+        private final List<HtmlStreamExtractor> extractors;
+        private final boolean firstOnly;
+        private final List<Match>[] matches;
+        private final List<Frame> stack = new ArrayList<>();
+        // values of the open matched elements, which collect the text
+        private final List<Match> texts = new ArrayList<>();
+        private boolean stopped;
+
+        @SuppressWarnings("unchecked")
+        private StreamVisitor(LagartoParser parser, List<HtmlStreamExtractor> extractors, boolean firstOnly) {
+            this.parser = parser;
+            this.extractors = extractors;
+            this.firstOnly = firstOnly;
+            this.matches = new List[extractors.size()];
+            boolean[][][] root = new boolean[extractors.size()][][];
+            for (int i = 0; i < matches.length; i++) {
+                matches[i] = new ArrayList<>();
+                root[i] = newStates(extractors.get(i));
+            }
+            stack.add(new Frame(null, flatten(root), flatten(root)));
+        }
+
+        @Override
+        public void tag(Tag tag) {
+            if (stopped) {
+                return;
+            }
+            String name = name(tag);
+            if (tag.getType() == TagType.END) {
+                close(name);
+                return;
+            }
+            // implied end tags, such as <p> in <p>
+            while (stack.size() > 1 && CLOSING_RULES.implicitlyCloseParentTagOnNewTag(top().name, name)) {
+                pop();
+            }
+            Frame frame = open(tag, name);
+            if (tag.getType() == TagType.SELF_CLOSING || VOID_RULES.isVoidTag(name)) {
+                pop(frame);
+            }
+            checkFound();
+        }
+
+        @Override
+        public void script(Tag tag, CharSequence body) {
+            if (stopped) {
+                return;
+            }
+            Frame frame = open(tag, name(tag));
+            text(body);
+            pop(frame);
+            checkFound();
+        }
+
+        @Override
+        public void text(CharSequence text) {
+            if (stopped) {
+                return;
+            }
+            for (Match match : texts) {
+                match.text.append(text);
+            }
+        }
+
+        @Override
+        public void cdata(CharSequence cdata) {
+            text(cdata);
+        }
+
+        @Override
+        public void end() {
+            while (stack.size() > 1) {
+                pop();
+            }
+        }
+
+        private String name(Tag tag) {
+            String name = tag.getName().toString();
+            return tag.isCaseSensitive() ? name : name.toLowerCase();
+        }
+
+        private Frame top() {
+            return stack.get(stack.size() - 1);
+        }
+
+        /**
+         * match the chains of all extractors at the new element, and start the values of the matched ones.
+         */
+        private Frame open(Tag tag, String name) {
+            Frame parent = top();
+            boolean[][] matched = new boolean[parent.matched.length][];
+            boolean[][] reached = new boolean[parent.matched.length][];
+            List<Match> started = null;
+            int chain = 0;
+            for (int i = 0; i < extractors.size(); i++) {
+                HtmlStreamExtractor extractor = extractors.get(i);
+                boolean skip = firstOnly && !matches[i].isEmpty();
+                boolean found = false;
+                for (CssSelector[] selectors : extractor.chains) {
+                    boolean[] chainMatched = new boolean[selectors.length];
+                    boolean[] chainReached = new boolean[selectors.length];
+                    for (int k = 0; !skip && k < selectors.length; k++) {
+                        boolean prefix;
+                        if (k == 0) {
+                            prefix = true;
+                        } else if (selectors[k - 1].getCombinator() == Combinator.CHILD) {
+                            prefix = parent.matched[chain][k - 1];
+                        } else {
+                            prefix = parent.reached[chain][k - 1];
+                        }
+                        chainMatched[k] = prefix && matches(selectors[k], tag, name);
+                        chainReached[k] = chainMatched[k] || parent.reached[chain][k];
+                    }
+                    found |= chainMatched[selectors.length - 1];
+                    matched[chain] = chainMatched;
+                    reached[chain] = chainReached;
+                    chain++;
+                }
+                if (found) {
+                    Match match = start(extractor, tag);
+                    matches[i].add(match);
+                    if (!match.complete) {
+                        if (started == null) {
+                            started = new ArrayList<>(1);
+                        }
+                        started.add(match);
+                    }
+                }
+            }
+            Frame frame = new Frame(name, matched, reached);
+            if (started != null) {
+                frame.texts = started;
+                texts.addAll(started);
+            }
+            stack.add(frame);
+            return frame;
+        }
+
+        private Match start(HtmlStreamExtractor extractor, Tag tag) {
+            if (extractor.attribute == null) {
+                return new Match(new StringBuilder(), null);
+            }
+            int index = tag.getAttributeIndex(extractor.attribute);
+            CharSequence value = index < 0 ? null : tag.getAttributeValue(index);
+            // the parser decodes the attribute value
+            return new Match(null, value == null ? "" : StringUtils.normalizeWhitespace(value));
+        }
+
+        /**
+         * close the nearest open element of the name and the elements in it, an end tag without
+         * an open element is ignored.
+         */
+        private void close(String name) {
+            for (int i = stack.size() - 1; i > 0; i--) {
+                if (name.equals(stack.get(i).name)) {
+                    while (stack.size() > i) {
+                        pop();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void pop(Frame frame) {
+            if (top() == frame) {
+                pop();
+            }
+        }
+
+        private void pop() {
+            Frame frame = stack.remove(stack.size() - 1);
+            if (frame.texts != null) {
+                for (Match match : frame.texts) {
+                    match.complete = true;
+                    texts.remove(match);
+                }
+                checkFound();
+            }
+        }
+
+        /**
+         * stop parsing when the first values of all extractors are complete.
+         */
+        private void checkFound() {
+            if (!firstOnly || stopped) {
+                return;
+            }
+            for (List<Match> extractorMatches : matches) {
+                if (extractorMatches.isEmpty() || !extractorMatches.get(0).complete) {
+                    return;
+                }
+            }
+            stopped = true;
+            parser.stop();
+        }
+
+        private static boolean[][] newStates(HtmlStreamExtractor extractor) {
+            boolean[][] states = new boolean[extractor.chains.size()][];
+            for (int i = 0; i < states.length; i++) {
+                states[i] = new boolean[extractor.chains.get(i).length];
+            }
+            return states;
+        }
+
+        private static boolean[][] flatten(boolean[][][] states) {
+            List<boolean[]> flat = new ArrayList<>();
+            for (boolean[][] one : states) {
+                Collections.addAll(flat, one);
+            }
+            return flat.toArray(new boolean[0][]);
+        }
+    }
+}
@@ -1,19 +1,32 @@
 package im.nll.data.extractor.impl;
 
 import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.mapper.MappingProvider;
+import im.nll.data.extractor.ExtractContext;
 import im.nll.data.extractor.ListableExtractor;
 import im.nll.data.extractor.annotation.Name;
+import im.nll.data.extractor.exception.ExtractException;
 import im.nll.data.extractor.utils.TypeUtils;
 import net.minidev.json.JSONObject;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * json extractor<p>impl by <a href=https://github.com/jayway/JsonPath>https://github.com/jayway/JsonPath</a></p>
+ * <p>the path is compiled once, and all json extractors of a document read the same parsed json.</p>
+ * <p>the default provider is json-smart, use {@link #jsonProvider(JsonProvider)} to change it, such as
+ * {@link LazyJsonProvider} for large json of which only a few values are read.
+ * extractors with the same configuration, the provider instances and the options, share the parsed json.</p>
  *
  * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
  * @version Revision: 1.0
@@ -23,14 +36,63 @@ import java.util.Map;
 public class JSONPathExtractor implements ListableExtractor {
     static final Configuration conf = Configuration.defaultConfiguration().addOptions(Option.ALWAYS_RETURN_LIST, Option.DEFAULT_PATH_LEAF_TO_NULL, Option.SUPPRESS_EXCEPTIONS);
     private String jsonpath;
+    private JsonPath path;
+    private Configuration configuration = conf;
+    private Object documentKey = documentKey(conf);
 
     public JSONPathExtractor(String jsonpath) {
         this.jsonpath = jsonpath;
+        this.path = JsonPath.compile(jsonpath);
+    }
+
+    private JSONPathExtractor(JSONPathExtractor extractor) {
+        this.jsonpath = extractor.jsonpath;
+        this.path = extractor.path;
+        this.configuration = extractor.configuration;
+        this.documentKey = extractor.documentKey;
+    }
+
+    /**
+     * copy this extractor, the providers set on the copy don't change this.
+     *
+     * @return
+     */
+    public JSONPathExtractor copy() {
+        return new JSONPathExtractor(this);
+    }
+
+    /**
+     * set the json provider which parses the json
+     *
+     * @param jsonProvider
+     * @return
+     */
+    public JSONPathExtractor jsonProvider(JsonProvider jsonProvider) {
+        this.configuration = configuration.jsonProvider(jsonProvider);
+        this.documentKey = documentKey(configuration);
+        return this;
+    }
+
+    /**
+     * set the mapping provider which maps json values to java types
+     *
+     * @param mappingProvider
+     * @return
+     */
+    public JSONPathExtractor mappingProvider(MappingProvider mappingProvider) {
+        this.configuration = configuration.mappingProvider(mappingProvider);
+        this.documentKey = documentKey(configuration);
+        return this;
     }
 
     @Override
     public String extract(String data) {
-        List<String> list = JsonPath.using(conf).parse(data).read(jsonpath);
+        return extract(ExtractContext.of(data));
+    }
+
+    @Override
+    public String extract(ExtractContext context) {
+        List<String> list = parse(context).read(path);
         if (list.get(0) == null) {
             return "";
         } else {
@@ -40,16 +102,76 @@ public class JSONPathExtractor implements ListableExtractor {
 
     @Override
     public List<String> extractList(String data) {
-        List<Object> list = JsonPath.using(conf).parse(data).read(jsonpath);
+        return extractList(ExtractContext.of(data));
+    }
+
+    @Override
+    public List<String> extractList(ExtractContext context) {
+        List<Object> list = parse(context).read(path);
         List<String> stringList = new LinkedList<>();
         for (Object one : list) {
+            stringList.add(wrap(one));
+        }
+        return stringList;
+    }
+
+    /**
+     * split to the matched json values. objects and arrays are kept as parsed json in the records,
+     * so the json extractors of the records don't parse them again.
+     *
+     * @param context
+     * @return
+     */
+    @Override
+    public List<ExtractContext> split(ExtractContext context) {
+        List<Object> list = parse(context).read(path);
+        List<ExtractContext> records = new ArrayList<>(list.size());
+        for (Object one : list) {
+            JsonProvider provider = configuration.jsonProvider();
+            if (provider.isMap(one) || provider.isArray(one)) {
+                records.add(ExtractContext.of(documentKey, JsonPath.using(configuration).parse(one), () -> wrap(one)));
+            } else {
+                records.add(ExtractContext.of(wrap(one)));
+            }
+        }
+        return records;
+    }
+
+    private String wrap(Object one) {
+        JsonProvider provider = configuration.jsonProvider();
+        if (provider == conf.jsonProvider()) {
             if (one instanceof Map) {
                 JSONObject jsonObject = new JSONObject((Map<String, ?>) one);
-                stringList.add(jsonObject.toJSONString());
-            } else {
-                stringList.add(TypeUtils.castToString(one));
+                return jsonObject.toJSONString();
             }
+        } else if (provider.isMap(one) || provider.isArray(one)) {
+            return provider.toJson(one);
+        }
+        return TypeUtils.castToString(one);
+    }
+
+    private DocumentContext parse(ExtractContext context) {
+        return context.getDocument(documentKey, this::createDocument);
+    }
+
+    /**
+     * the parsed json is read with its configuration, so only the same configuration shares it.
+     *
+     * @param configuration
+     * @return
+     */
+    private static Object documentKey(Configuration configuration) {
+        return Arrays.asList(configuration.jsonProvider(), configuration.mappingProvider(), configuration.getOptions());
+    }
+
+    private DocumentContext createDocument(ExtractContext context) {
+        if (!context.isBinary()) {
+            return JsonPath.using(configuration).parse(context.getData());
+        }
+        try (InputStream in = context.openStream()) {
+            return JsonPath.using(configuration).parse(in, context.getCharset().name());
+        } catch (IOException e) {
+            throw new ExtractException(e);
         }
-        return stringList;
     }
 }
@@ -0,0 +1,352 @@
+package im.nll.data.extractor.impl;
+
+import im.nll.data.extractor.ExtractContext;
+import im.nll.data.extractor.ListableExtractor;
+import im.nll.data.extractor.annotation.Name;
+import im.nll.data.extractor.exception.ExtractException;
+import im.nll.data.extractor.utils.Validate;
+import net.minidev.json.JSONValue;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * streaming json split extractor.
+ * <p>
+ * reads the json token by token and only keeps the matched values, one at a time, so the records of
+ * json which doesn't fit in memory can be extracted by {@link ListableExtractor#splitIterator(ExtractContext)}.
+ * the input is open until the last record is read, close the iterator or the stream to stop earlier.
+ * the input can be newline-delimited json or any sequence of json values, the path is applied to each of them.
+ * </p>
+ * <p>
+ * only simple paths are supported:
+ * <li>$ - every top level value, such as every line of newline-delimited json</li>
+ * <li>$[*] - elements of the top level array</li>
+ * <li>$.items[*] or $['items'][*] - elements of the items array</li>
+ * <li>$.pages[*].items - values of items in every element of pages, '.*' is the same as '[*]'</li>
+ * <p>
+ * objects and arrays are records of their json text, strings and other values are records of the value,
+ * same as {@link JSONPathExtractor}.
+ * </p>
+ *
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/18 上午12:14
+ */
+@Name("jsonStream")
+public class JSONStreamExtractor implements ListableExtractor {
+    private static final String WILDCARD = "*";
+    private String jsonpath;
+    private List<String> segments;
+
+    public JSONStreamExtractor(String jsonpath) {
+        this.jsonpath = jsonpath;
+        this.segments = parsePath(jsonpath.trim());
+    }
+
+    private static List<String> parsePath(String path) {
+        Validate.isTrue(path.startsWith("$"), "json path must start with '$'. path:'" + path + "'");
+        List<String> segments = new ArrayList<>();
+        int pos = 1;
+        while (pos < path.length()) {
+            if (path.startsWith("[*]", pos)) {
+                segments.add(WILDCARD);
+                pos += 3;
+            } else if (path.startsWith("['", pos)) {
+                int end = path.indexOf("']", pos + 2);
+                Validate.isTrue(end > 0, "unclosed property at " + pos + ". path:'" + path + "'");
+                segments.add(path.substring(pos + 2, end));
+                pos = end + 2;
+            } else if (path.charAt(pos) == '.' && !path.startsWith("..", pos)) {
+                int end = pos + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                Validate.isTrue(end > pos + 1, "empty property at " + pos + ". path:'" + path + "'");
+                segments.add(path.substring(pos + 1, end));
+                pos = end;
+            } else {
+                throw new IllegalArgumentException("unsupported json path for streaming at " + pos + ". path:'" + path + "'");
+            }
+        }
+        return segments;
+    }
+
+    @Override
+    public String extract(String data) {
+        Iterator<ExtractContext> records = splitIterator(ExtractContext.of(data));
+        return records.hasNext() ? records.next().getData() : "";
+    }
+
+    @Override
+    public List<String> extractList(String data) {
+        List<String> stringList = new LinkedList<>();
+        for (ExtractContext record : split(ExtractContext.of(data))) {
+            stringList.add(record.getData());
+        }
+        return stringList;
+    }
+
+    @Override
+    public List<ExtractContext> split(ExtractContext context) {
+        List<ExtractContext> records = new ArrayList<>();
+        splitIterator(context).forEachRemaining(records::add);
+        return records;
+    }
+
+    /**
+     * read the records one by one, the input is closed after the last record or an error.
+     * the iterator is {@link Closeable}, close it when the records are not all read.
+     *
+     * @param context
+     * @return
+     */
+    @Override
+    public Iterator<ExtractContext> splitIterator(ExtractContext context) {
+        Reader reader;
+        try {
+            reader = context.isBinary() ? new InputStreamReader(context.openStream(), context.getCharset()) : new StringReader(context.getData());
+        } catch (IOException e) {
+            throw new ExtractException(e);
+        }
+        return new RecordIterator(new Scanner(reader, segments));
+    }
+
+    private static final class RecordIterator implements Iterator<ExtractContext>, Closeable {
+        private final Scanner scanner;
+        private ExtractContext next;
+
+        private RecordIterator(Scanner scanner) {
+            this.scanner = scanner;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !scanner.closed) {
+                next = scanner.next();
+            }
+            return next != null;
+        }
+
+        @Override
+        public ExtractContext next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ExtractContext record = next;
+            next = null;
+            return record;
+        }
+
+        @Override
+        public void close() {
+            next = null;
+            scanner.close();
+        }
+    }
+
+    /**
+     * walks the json and stops at each matched value. only the containers on the path are on the stack,
+     * other values are skipped without keeping them.
+     */
+    private static final class Scanner {
+        private final Reader reader;
+        private final List<String> segments;
+        private final char[] buffer = new char[8192];
+        private int pos;
+        private int limit;
+        private boolean closed;
+        // containers on the path, the segment index of a container is its depth
+        private final Deque<Boolean> stack = new ArrayDeque<>();
+
+        private Scanner(Reader reader, List<String> segments) {
+            this.reader = reader;
+            this.segments = segments;
+        }
+
+        /**
+         * find the next matched value, null at the end of the input.
+         */
+        private ExtractContext next() {
+            try {
+                while (true) {
+                    int depth = stack.size();
+                    if (depth == 0) {
+                        if (peekToken() < 0) {
+                            close();
+                            return null;
+                        }
+                        ExtractContext record = enter(0);
+                        if (record != null) {
+                            return record;
+                        }
+                        continue;
+                    }
+                    boolean isObject = stack.peek();
+                    int c = peekToken();
+                    if (c == ',') {
+                        pos++;
+                        continue;
+                    }
+                    if (c == '}' || c == ']') {
+                        if ((c == '}') != isObject) {
+                            throw new ExtractException("invalid json, unexpected character '" + (char) c + "'");
+                        }
+                        pos++;
+                        stack.pop();
+                        continue;
+                    }
+                    String segment = segments.get(depth - 1);
+                    boolean matched = WILDCARD.equals(segment);
+                    if (isObject) {
+                        if (c != '"') {
+                            throw new ExtractException("invalid json, expected a string key but was '" + (char) c + "'");
+                        }
+                        String key = (String) JSONValue.parse(readValue(true));
+                        expect(':');
+                        matched = matched || segment.equals(key);
+                    }
+                    if (matched) {
+                        ExtractContext record = enter(depth);
+                        if (record != null) {
+                            return record;
+                        }
+                    } else {
+                        readValue(false);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw new ExtractException(e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * the value at the position matches the path to the depth, return it as a record when it is at the end
+         * of the path, or step into it.
+         */
+        private ExtractContext enter(int depth) throws IOException {
+            int c = peekToken();
+            if (depth == segments.size()) {
+                String value = readValue(true);
+                if (c == '"') {
+                    return ExtractContext.of((String) JSONValue.parse(value));
+                }
+                return ExtractContext.of("null".equals(value) ? null : value);
+            }
+            if (c == '{' || c == '[') {
+                pos++;
+                stack.push(c == '{');
+            } else {
+                readValue(false);
+            }
+            return null;
+        }
+
+        private void expect(char expected) throws IOException {
+            if (peekToken() != expected) {
+                throw new ExtractException("invalid json, expected '" + expected + "' but was '" + (char) peekToken() + "'");
+            }
+            pos++;
+        }
+
+        /**
+         * read a value, nested values are read by counting brackets.
+         *
+         * @param keep keep the text of the value or just skip it
+         */
+        private String readValue(boolean keep) throws IOException {
+            StringBuilder text = keep ? new StringBuilder() : null;
+            int first = peekToken();
+            if (first < 0) {
+                throw new ExtractException("invalid json, unexpected end of input");
+            }
+            int length = 0;
+            int depth = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            while (true) {
+                if (pos >= limit && !fill()) {
+                    if (depth == 0 && !inString) {
+                        break;
+                    }
+                    throw new ExtractException("invalid json, unexpected end of input");
+                }
+                char c = buffer[pos];
+                boolean end = false;
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        inString = false;
+                        end = depth == 0;
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (depth == 0) {
+                        break;
+                    }
+                    end = --depth == 0;
+                } else if (depth == 0 && (c == ',' || c == ':' || Character.isWhitespace(c))) {
+                    break;
+                }
+                pos++;
+                length++;
+                if (keep) {
+                    text.append(c);
+                }
+                if (end) {
+                    break;
+                }
+            }
+            if (length == 0) {
+                throw new ExtractException("invalid json, unexpected character '" + (char) first + "'");
+            }
+            return keep ? text.toString() : null;
+        }
+
+        private int peekToken() throws IOException {
+            while (true) {
+                if (pos >= limit && !fill()) {
+                    return -1;
+                }
+                char c = buffer[pos];
+                if (!Character.isWhitespace(c)) {
+                    return c;
+                }
+                pos++;
+            }
+        }
+
+        private boolean fill() throws IOException {
+            if (closed) {
+                return false;
+            }
+            int n = reader.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                return false;
+            }
+            pos = 0;
+            limit = n;
+            return true;
+        }
+
+        private void close() {
+            if (!closed) {
+                closed = true;
+                try {
+                    reader.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+}
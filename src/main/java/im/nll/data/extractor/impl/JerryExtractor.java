@@ -1,13 +1,11 @@
 package im.nll.data.extractor.impl;
 
+import im.nll.data.extractor.ExtractContext;
 import im.nll.data.extractor.ListableExtractor;
 import im.nll.data.extractor.annotation.Name;
 import im.nll.data.extractor.utils.StringUtils;
 import jodd.jerry.Jerry;
 import jodd.lagarto.dom.Node;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.parser.Parser;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -59,57 +57,88 @@ public class JerryExtractor implements ListableExtractor {
 
     @Override
     public String extract(String data) {
-        Jerry doc = jerry(data);
-        String result = "";
+        return extract(ExtractContext.of(data));
+    }
+
+    @Override
+    public String extract(ExtractContext context) {
+        Node[] nodes = parse(context).$(query).get();
+        if (nodes.length == 0) {
+            return "";
+        }
+        Node node = nodes[0];
         switch (outType) {
             case TYPE_TEXT:
-                result = parse(doc.$(query).first().text());
-                break;
+                return text(node);
             case TYPE_HTML:
-                result = parse(doc.$(query).first().html());
-                break;
+                return node.getInnerHtml();
             default:
-                result = parse(doc.$(query).first().attr(outType));
-                break;
+                return attr(node);
         }
-        return result;
     }
 
     @Override
     public List<String> extractList(String data) {
+        return extractList(ExtractContext.of(data));
+    }
+
+    @Override
+    public List<String> extractList(ExtractContext context) {
         List<String> strings = new LinkedList<>();
-        Jerry doc = jerry(data);
-        Node[] nodes = doc.$(query).get();
+        Node[] nodes = parse(context).$(query).get();
         for (Node node : nodes) {
             switch (outType) {
                 case TYPE_TEXT:
-                    strings.add(parse(node.getTextContent()));
+                    strings.add(text(node));
                     break;
                 case TYPE_HTML:
-                    strings.add(parse(node.getHtml()));
+                    strings.add(node.getHtml());
                     break;
                 default:
-                    strings.add(parse(node.getAttribute(outType)));
+                    strings.add(attr(node));
                     break;
             }
         }
         return strings;
     }
 
-    private String parse(String str) {
-        Document document = Jsoup.parse(str, "", Parser.xmlParser());
-        String result = "";
-        switch (outType) {
-            case TYPE_TEXT:
-                result = document.text();
-                break;
-            case TYPE_HTML:
-                result = document.html();
-                break;
-            default:
-                result = document.text();
-                break;
+    /**
+     * parse data once, jerry extractors on the same data select in the same document.
+     *
+     * @param context
+     * @return
+     */
+    private Jerry parse(ExtractContext context) {
+        return context.getDocument(JerryExtractor.class, one -> jerry(one.getData()));
+    }
+
+    /**
+     * decoded text of the node, whitespaces are normalized.
+     */
+    private static String text(Node node) {
+        StringBuilder text = new StringBuilder();
+        appendText(node, text);
+        return StringUtils.normalizeWhitespace(text);
+    }
+
+    private static void appendText(Node node, StringBuilder text) {
+        if (node.getNodeType() == Node.NodeType.TEXT || node.getNodeType() == Node.NodeType.CDATA) {
+            // the node value of text is decoded
+            text.append(node.getNodeValue());
+        }
+        for (int i = 0; i < node.getChildNodesCount(); i++) {
+            appendText(node.getChild(i), text);
+        }
+    }
+
+    /**
+     * attribute value, which is decoded by the parser, whitespaces are normalized.
+     */
+    private String attr(Node node) {
+        String value = node.getAttribute(outType);
+        if (value == null) {
+            return "";
         }
-        return result;
+        return StringUtils.normalizeWhitespace(value);
     }
 }
@@ -0,0 +1,259 @@
+package im.nll.data.extractor.impl;
+
+import org.jaxen.BaseXPath;
+import org.jaxen.DefaultNavigator;
+import org.jaxen.JaxenConstants;
+import org.jaxen.XPath;
+import org.jaxen.saxpath.SAXPathException;
+import org.jsoup.nodes.*;
+import org.jsoup.select.NodeTraversor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * jaxen navigator over jsoup nodes, xpath is evaluated on the jsoup tree without building another document.
+ * <p>
+ * the root of a navigator is a document or an element, an element root is the only child of a virtual document
+ * node, so absolute paths start from the element, the same as it is a document of its own.
+ * jsoup has no namespaces, names are matched as they are, such as 'oa:Task'. doctypes and xml declarations
+ * are not in the tree.
+ * </p>
+ *
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/18 上午2:10
+ */
+public class JsoupNavigator extends DefaultNavigator {
+    private final Element root;
+    private final Object document;
+
+    /**
+     * @param root the document or the element which is the root of the paths.
+     */
+    public JsoupNavigator(Element root) {
+        this.root = root;
+        this.document = root instanceof Document ? root : new RootNode(root);
+    }
+
+    @Override
+    public Object getDocumentNode(Object contextNode) {
+        return document;
+    }
+
+    @Override
+    public Iterator getChildAxisIterator(Object contextNode) {
+        if (contextNode instanceof RootNode) {
+            return Collections.singletonList(root).iterator();
+        }
+        if (!(contextNode instanceof Element)) {
+            return JaxenConstants.EMPTY_ITERATOR;
+        }
+        List<Node> children = new ArrayList<>(((Element) contextNode).childNodeSize());
+        for (Node child : ((Element) contextNode).childNodes()) {
+            if (child instanceof Element || child instanceof TextNode || child instanceof DataNode || child instanceof Comment) {
+                children.add(child);
+            }
+        }
+        return children.iterator();
+    }
+
+    @Override
+    public Iterator getParentAxisIterator(Object contextNode) {
+        Object parent = getParentNode(contextNode);
+        return parent == null ? JaxenConstants.EMPTY_ITERATOR : Collections.singletonList(parent).iterator();
+    }
+
+    @Override
+    public Object getParentNode(Object contextNode) {
+        if (contextNode instanceof AttributeNode) {
+            return ((AttributeNode) contextNode).owner;
+        }
+        if (contextNode == document) {
+            return null;
+        }
+        if (contextNode == root) {
+            return document;
+        }
+        return contextNode instanceof Node ? ((Node) contextNode).parent() : null;
+    }
+
+    @Override
+    public Iterator getAttributeAxisIterator(Object contextNode) {
+        if (!isElement(contextNode)) {
+            return JaxenConstants.EMPTY_ITERATOR;
+        }
+        Element element = (Element) contextNode;
+        if (element.attributesSize() == 0) {
+            return JaxenConstants.EMPTY_ITERATOR;
+        }
+        List<AttributeNode> attributes = new ArrayList<>(element.attributesSize());
+        for (Attribute attribute : element.attributes()) {
+            attributes.add(new AttributeNode(element, attribute.getKey(), attribute.getValue()));
+        }
+        return attributes.iterator();
+    }
+
+    @Override
+    public Iterator getNamespaceAxisIterator(Object contextNode) {
+        return JaxenConstants.EMPTY_ITERATOR;
+    }
+
+    @Override
+    public XPath parseXPath(String xpath) throws SAXPathException {
+        return new BaseXPath(xpath, this);
+    }
+
+    @Override
+    public boolean isDocument(Object object) {
+        return object instanceof Document || object instanceof RootNode;
+    }
+
+    @Override
+    public boolean isElement(Object object) {
+        return object instanceof Element && !(object instanceof Document);
+    }
+
+    @Override
+    public boolean isAttribute(Object object) {
+        return object instanceof AttributeNode;
+    }
+
+    @Override
+    public boolean isNamespace(Object object) {
+        return false;
+    }
+
+    @Override
+    public boolean isComment(Object object) {
+        return object instanceof Comment;
+    }
+
+    @Override
+    public boolean isText(Object object) {
+        return object instanceof TextNode || object instanceof DataNode;
+    }
+
+    @Override
+    public boolean isProcessingInstruction(Object object) {
+        return false;
+    }
+
+    @Override
+    public String getElementNamespaceUri(Object element) {
+        return "";
+    }
+
+    @Override
+    public String getElementName(Object element) {
+        return ((Element) element).tagName();
+    }
+
+    @Override
+    public String getElementQName(Object element) {
+        return ((Element) element).tagName();
+    }
+
+    @Override
+    public String getAttributeNamespaceUri(Object attr) {
+        return "";
+    }
+
+    @Override
+    public String getAttributeName(Object attr) {
+        return ((AttributeNode) attr).name;
+    }
+
+    @Override
+    public String getAttributeQName(Object attr) {
+        return ((AttributeNode) attr).name;
+    }
+
+    @Override
+    public String getCommentStringValue(Object comment) {
+        return ((Comment) comment).getData();
+    }
+
+    /**
+     * the string value is the text and data of the descendant text nodes, in document order.
+     */
+    @Override
+    public String getElementStringValue(Object element) {
+        Element root = element instanceof RootNode ? ((RootNode) element).element : (Element) element;
+        StringBuilder value = new StringBuilder();
+        NodeTraversor.traverse((node, depth) -> {
+            if (isText(node)) {
+                value.append(getTextStringValue(node));
+            }
+        }, root);
+        return value.toString();
+    }
+
+    @Override
+    public String getAttributeStringValue(Object attr) {
+        return ((AttributeNode) attr).value;
+    }
+
+    @Override
+    public String getNamespaceStringValue(Object ns) {
+        return null;
+    }
+
+    @Override
+    public String getTextStringValue(Object text) {
+        if (text instanceof DataNode) {
+            return ((DataNode) text).getWholeData();
+        }
+        return ((TextNode) text).getWholeText();
+    }
+
+    @Override
+    public String getNamespacePrefix(Object ns) {
+        return null;
+    }
+
+    /**
+     * the virtual document node of an element root.
+     */
+    private static final class RootNode {
+        private final Element element;
+
+        private RootNode(Element element) {
+            this.element = element;
+        }
+    }
+
+    /**
+     * jsoup attributes don't know their elements, the attribute node keeps it for the parent axis.
+     */
+    private static final class AttributeNode {
+        private final Element owner;
+        private final String name;
+        private final String value;
+
+        private AttributeNode(Element owner, String name, String value) {
+            this.owner = owner;
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AttributeNode)) {
+                return false;
+            }
+            AttributeNode that = (AttributeNode) o;
+            return owner == that.owner && name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(owner) + name.hashCode();
+        }
+    }
+}
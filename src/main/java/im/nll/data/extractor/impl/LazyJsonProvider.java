@@ -0,0 +1,482 @@
+package im.nll.data.extractor.impl;
+
+import com.jayway.jsonpath.InvalidJsonException;
+import com.jayway.jsonpath.spi.json.AbstractJsonProvider;
+import net.minidev.json.JSONValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * a json provider which parses lazily.
+ * <p>
+ * parsing only checks the structure of the json: matched brackets, keys and separators. an object or array indexes the offsets of its members when
+ * it is first read, and a member is decoded only when a path reads it, so the subtrees which no path touches
+ * are never built. objects and arrays are read-only {@link Map} and {@link List} views of the json text,
+ * their {@link #toJson(Object)} and {@link Object#toString()} return the text without serializing it again.
+ * a malformed number or literal is only found when it is decoded.
+ * </p>
+ * <p>
+ * like the parsed documents of a context, the views are not thread-safe.
+ * </p>
+ *
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/17 下午11:02
+ */
+public class LazyJsonProvider extends AbstractJsonProvider {
+
+    @Override
+    public Object parse(String json) throws InvalidJsonException {
+        int start = skipWhitespace(json, 0);
+        int end = skipValue(json, start);
+        if (skipWhitespace(json, end) != json.length()) {
+            throw new InvalidJsonException("unexpected character at " + skipWhitespace(json, end));
+        }
+        return value(json, start, end);
+    }
+
+    @Override
+    public Object parse(InputStream jsonStream, String charset) throws InvalidJsonException {
+        StringBuilder json = new StringBuilder();
+        char[] buffer = new char[8192];
+        try {
+            Reader reader = new InputStreamReader(jsonStream, charset);
+            int n;
+            while ((n = reader.read(buffer)) != -1) {
+                json.append(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+        return parse(json.toString());
+    }
+
+    @Override
+    public String toJson(Object obj) {
+        if (obj instanceof LazyValue) {
+            return obj.toString();
+        }
+        return JSONValue.toJSONString(obj);
+    }
+
+    @Override
+    public Object createArray() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Object createMap() {
+        return new LinkedHashMap<String, Object>();
+    }
+
+    //------------ scanner --------------//
+
+    private static Object value(String json, int start, int end) {
+        char c = json.charAt(start);
+        switch (c) {
+            case '{':
+                return new LazyObject(json, start, end);
+            case '[':
+                return new LazyArray(json, start, end);
+            case '"':
+                return decodeString(json, start, end);
+            case 't':
+                return literal(json, start, end, "true", Boolean.TRUE);
+            case 'f':
+                return literal(json, start, end, "false", Boolean.FALSE);
+            case 'n':
+                return literal(json, start, end, "null", null);
+            default:
+                return decodeNumber(json.substring(start, end));
+        }
+    }
+
+    private static Object literal(String json, int start, int end, String literal, Object value) {
+        if (end - start != literal.length() || !json.startsWith(literal, start)) {
+            throw new InvalidJsonException("invalid value '" + json.substring(start, end) + "'");
+        }
+        return value;
+    }
+
+    private static int skipWhitespace(String json, int pos) {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * find the end of the value starting at pos, nested values are checked to be well formed json
+     * without decoding them, the scalar values are checked when they are decoded.
+     */
+    private static int skipValue(String json, int pos) {
+        if (pos >= json.length()) {
+            throw new InvalidJsonException("unexpected end of json at " + pos);
+        }
+        char c = json.charAt(pos);
+        if (c == '"') {
+            return skipString(json, pos);
+        }
+        if (c != '{' && c != '[') {
+            return skipScalar(json, pos);
+        }
+        // the open objects and arrays
+        StringBuilder open = new StringBuilder();
+        int i = pos;
+        while (true) {
+            i = skipWhitespace(json, i);
+            if (i >= json.length()) {
+                break;
+            }
+            char one = json.charAt(i);
+            if (one == '{' || one == '[') {
+                open.append(one);
+                i = skipWhitespace(json, i + 1);
+                if (i < json.length() && json.charAt(i) == close(one)) {
+                    open.setLength(open.length() - 1);
+                    i++;
+                } else {
+                    if (one == '{') {
+                        i = skipKey(json, i);
+                    }
+                    continue;
+                }
+            } else if (one == '"') {
+                i = skipString(json, i);
+            } else {
+                i = skipScalar(json, i);
+            }
+            // a value ends, close the containers or go to the next member
+            while (open.length() > 0) {
+                i = skipWhitespace(json, i);
+                if (i >= json.length()) {
+                    break;
+                }
+                char container = open.charAt(open.length() - 1);
+                char separator = json.charAt(i);
+                if (separator == close(container)) {
+                    open.setLength(open.length() - 1);
+                    i++;
+                } else if (separator == ',') {
+                    i = container == '{' ? skipKey(json, i + 1) : i + 1;
+                    break;
+                } else {
+                    throw new InvalidJsonException("expected ',' or '" + close(container) + "' at " + i);
+                }
+            }
+            if (open.length() == 0) {
+                return i;
+            }
+            if (i >= json.length()) {
+                break;
+            }
+        }
+        throw new InvalidJsonException("unexpected end of json, '" + c + "' at " + pos + " is not closed");
+    }
+
+    private static char close(char open) {
+        return open == '{' ? '}' : ']';
+    }
+
+    /**
+     * skip the key of an object member and the colon after it.
+     */
+    private static int skipKey(String json, int pos) {
+        int key = expect(json, pos, '"') - 1;
+        return expect(json, skipString(json, key), ':');
+    }
+
+    private static int skipScalar(String json, int pos) {
+        int i = pos;
+        while (i < json.length() && ",:{}[]\" \t\r\n".indexOf(json.charAt(i)) < 0) {
+            i++;
+        }
+        if (i == pos) {
+            throw new InvalidJsonException("unexpected character '" + json.charAt(pos) + "' at " + pos);
+        }
+        return i;
+    }
+
+    private static int skipString(String json, int pos) {
+        for (int i = pos + 1; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i + 1;
+            }
+        }
+        throw new InvalidJsonException("unexpected end of json, string at " + pos + " is not closed");
+    }
+
+    private static int expect(String json, int pos, char c) {
+        pos = skipWhitespace(json, pos);
+        if (pos >= json.length() || json.charAt(pos) != c) {
+            throw new InvalidJsonException("expected '" + c + "' at " + pos);
+        }
+        return pos + 1;
+    }
+
+    private static String decodeString(String json, int start, int end) {
+        int last = end - 1;
+        int escape = start + 1;
+        while (escape < last && json.charAt(escape) != '\\') {
+            escape++;
+        }
+        if (escape == last) {
+            return json.substring(start + 1, last);
+        }
+        StringBuilder builder = new StringBuilder(last - start);
+        builder.append(json, start + 1, escape);
+        for (int i = escape; i < last; i++) {
+            char c = json.charAt(i);
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            c = json.charAt(++i);
+            switch (c) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    builder.append(decodeUnicode(json, i + 1, last));
+                    i += 4;
+                    break;
+                default:
+                    builder.append(c);
+                    break;
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * decode the 4 hex digits of a unicode escape at pos, the string ends at end.
+     */
+    private static char decodeUnicode(String json, int pos, int end) {
+        if (pos + 4 > end) {
+            throw new InvalidJsonException("invalid unicode escape at " + (pos - 2));
+        }
+        int c = 0;
+        for (int i = pos; i < pos + 4; i++) {
+            int digit = Character.digit(json.charAt(i), 16);
+            if (digit < 0) {
+                throw new InvalidJsonException("invalid unicode escape at " + (pos - 2));
+            }
+            c = (c << 4) | digit;
+        }
+        return (char) c;
+    }
+
+    /**
+     * decode numbers to the same types as json-smart: Integer, Long or BigInteger for integers, Double otherwise.
+     */
+    private static Number decodeNumber(String number) {
+        try {
+            if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                long value = Long.parseLong(number);
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+                return value;
+            }
+            return Double.valueOf(number);
+        } catch (NumberFormatException e) {
+            try {
+                return new BigInteger(number);
+            } catch (NumberFormatException e2) {
+                throw new InvalidJsonException("invalid value '" + number + "'");
+            }
+        }
+    }
+
+    //------------ views --------------//
+
+    private interface LazyValue {
+    }
+
+    private static final class LazyObject extends AbstractMap<String, Object> implements LazyValue {
+        private final String json;
+        private final int start;
+        private final int end;
+        private Map<String, int[]> members;
+        private Map<String, Object> values;
+
+        private LazyObject(String json, int start, int end) {
+            this.json = json;
+            this.start = start;
+            this.end = end;
+        }
+
+        private Map<String, int[]> members() {
+            if (members == null) {
+                Map<String, int[]> members = new LinkedHashMap<>();
+                int pos = skipWhitespace(json, start + 1);
+                if (json.charAt(pos) != '}') {
+                    while (true) {
+                        int keyStart = expect(json, pos, '"') - 1;
+                        int keyEnd = skipString(json, keyStart);
+                        String key = decodeString(json, keyStart, keyEnd);
+                        int valueStart = skipWhitespace(json, expect(json, keyEnd, ':'));
+                        int valueEnd = skipValue(json, valueStart);
+                        members.put(key, new int[]{valueStart, valueEnd});
+                        pos = skipWhitespace(json, valueEnd);
+                        if (json.charAt(pos) == '}') {
+                            break;
+                        }
+                        pos = expect(json, pos, ',');
+                    }
+                }
+                this.members = members;
+                this.values = new HashMap<>();
+            }
+            return members;
+        }
+
+        @Override
+        public Object get(Object key) {
+            int[] member = members().get(key);
+            if (member == null) {
+                return null;
+            }
+            Object value = values.get(key);
+            if (value == null && !values.containsKey(key)) {
+                value = value(json, member[0], member[1]);
+                values.put((String) key, value);
+            }
+            return value;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return members().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return members().size();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(members().keySet());
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<String> keys = members().keySet().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return keys.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            String key = keys.next();
+                            return new SimpleImmutableEntry<>(key, get(key));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return members().size();
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return json.substring(start, end);
+        }
+    }
+
+    private static final class LazyArray extends AbstractList<Object> implements RandomAccess, LazyValue {
+        private static final Object UNDECODED = new Object();
+        private final String json;
+        private final int start;
+        private final int end;
+        private int[] offsets;
+        private Object[] values;
+
+        private LazyArray(String json, int start, int end) {
+            this.json = json;
+            this.start = start;
+            this.end = end;
+        }
+
+        private int[] offsets() {
+            if (offsets == null) {
+                int[] offsets = new int[16];
+                int size = 0;
+                int pos = skipWhitespace(json, start + 1);
+                if (json.charAt(pos) != ']') {
+                    while (true) {
+                        int valueStart = skipWhitespace(json, pos);
+                        int valueEnd = skipValue(json, valueStart);
+                        if (size + 2 > offsets.length) {
+                            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                        }
+                        offsets[size++] = valueStart;
+                        offsets[size++] = valueEnd;
+                        pos = skipWhitespace(json, valueEnd);
+                        if (json.charAt(pos) == ']') {
+                            break;
+                        }
+                        pos = expect(json, pos, ',');
+                    }
+                }
+                this.values = new Object[size / 2];
+                Arrays.fill(values, UNDECODED);
+                this.offsets = Arrays.copyOf(offsets, size);
+            }
+            return offsets;
+        }
+
+        @Override
+        public Object get(int index) {
+            int[] offsets = offsets();
+            if (index < 0 || index >= values.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + values.length);
+            }
+            Object value = values[index];
+            if (value == UNDECODED) {
+                value = value(json, offsets[index * 2], offsets[index * 2 + 1]);
+                values[index] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return offsets().length / 2;
+        }
+
+        @Override
+        public String toString() {
+            return json.substring(start, end);
+        }
+    }
+}
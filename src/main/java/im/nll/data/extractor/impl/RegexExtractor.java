@@ -1,35 +1,163 @@
 package im.nll.data.extractor.impl;
 
-import im.nll.data.extractor.Extractor;
+import im.nll.data.extractor.ExtractContext;
+import im.nll.data.extractor.ListableExtractor;
 import im.nll.data.extractor.annotation.Name;
+import im.nll.data.extractor.utils.Validate;
 
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * regex extractor
+ * <p>
+ * short string: <code>regex:pattern#group#flags</code>, group and flags are optional.
+ * <li>regex:\d+ - the first match</li>
+ * <li>regex:id=(\d+)#1 - group 1 of the first match</li>
+ * <li>regex:[A-Z]+#0#m - case sensitive, flags are letters of i(case insensitive), m(multiline),
+ * s(dotall), u(unicode case) and x(comments). default is ims.</li>
+ * <p>
+ * use <code>\#</code> for a '#' before the options. the options are only read from the short string,
+ * see {@link #fromShortString(String)}, the regex of the constructors is used as it is.
+ * </p>
+ * <p>
+ * NOTE: before the options, a short string ending with '#' and digits was matched literally. now
+ * <code>regex:item#1</code> means group 1 of <code>item</code>, and fails with "has no group" because the regex
+ * has no group. write <code>regex:item\#1</code> to match "item#1".
+ * </p>
+ *
  * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
  * @version Revision: 1.0
  * @date 15/12/28 下午4:24
  */
 @Name("regex")
-public class RegexExtractor implements Extractor {
+public class RegexExtractor implements ListableExtractor {
+    private static final int DEFAULT_FLAGS = Pattern.DOTALL | Pattern.CASE_INSENSITIVE | Pattern.MULTILINE;
+    private static final Pattern OPTIONS = Pattern.compile("(?<!\\\\)#(\\d+)(?:#([imsux]*))?$");
     private String regex;
     private int group = 0;
+    private Pattern pattern;
 
     public RegexExtractor(String regex) {
+        this(regex, 0);
+    }
+
+    /**
+     * @param regex
+     * @param group the group of match to extract
+     */
+    public RegexExtractor(String regex, int group) {
+        this(regex, group, DEFAULT_FLAGS);
+    }
+
+    /**
+     * @param regex
+     * @param group the group of match to extract
+     * @param flags {@link Pattern} flags
+     */
+    public RegexExtractor(String regex, int group, int flags) {
         this.regex = regex;
+        this.group = group;
+        this.pattern = compile(regex, flags);
+    }
+
+    /**
+     * create the extractor from the short string, which may end with the '#group#flags' options.
+     *
+     * @param shortString
+     * @return
+     */
+    public static RegexExtractor fromShortString(String shortString) {
+        Matcher options = OPTIONS.matcher(shortString);
+        if (!options.find()) {
+            return new RegexExtractor(shortString);
+        }
+        int group = Integer.parseInt(options.group(1));
+        int flags = options.group(2) == null ? DEFAULT_FLAGS : parseFlags(options.group(2));
+        return new RegexExtractor(shortString.substring(0, options.start()), group, flags);
+    }
+
+    private Pattern compile(String regex, int flags) {
+        Pattern pattern = Pattern.compile(regex, flags);
+        Validate.isTrue(group <= pattern.matcher("").groupCount(), "regex '" + regex + "' has no group " + group);
+        return pattern;
+    }
+
+    private static int parseFlags(String letters) {
+        int flags = 0;
+        for (char letter : letters.toCharArray()) {
+            switch (letter) {
+                case 'i':
+                    flags |= Pattern.CASE_INSENSITIVE;
+                    break;
+                case 'm':
+                    flags |= Pattern.MULTILINE;
+                    break;
+                case 's':
+                    flags |= Pattern.DOTALL;
+                    break;
+                case 'u':
+                    flags |= Pattern.UNICODE_CASE;
+                    break;
+                default:
+                    flags |= Pattern.COMMENTS;
+                    break;
+            }
+        }
+        return flags;
     }
 
     @Override
     public String extract(String data) {
-        Pattern pattern = Pattern.compile(regex, Pattern.DOTALL
-                | Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
         Matcher matcher = pattern.matcher(data);
         if (matcher.find())
-            return matcher.group(group).trim();
+            return group(matcher);
         else {
             return "";
         }
     }
+
+    @Override
+    public List<String> extractList(String data) {
+        List<String> strings = new LinkedList<>();
+        Matcher matcher = pattern.matcher(data);
+        while (matcher.find()) {
+            strings.add(group(matcher));
+        }
+        return strings;
+    }
+
+    @Override
+    public Iterator<ExtractContext> splitIterator(ExtractContext context) {
+        Matcher matcher = pattern.matcher(context.getData());
+        return new Iterator<ExtractContext>() {
+            private Boolean found;
+
+            @Override
+            public boolean hasNext() {
+                if (found == null) {
+                    found = matcher.find();
+                }
+                return found;
+            }
+
+            @Override
+            public ExtractContext next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                found = null;
+                return ExtractContext.of(group(matcher));
+            }
+        };
+    }
+
+    private String group(Matcher matcher) {
+        String value = matcher.group(group);
+        return value == null ? "" : value.trim();
+    }
 }
@@ -1,16 +1,25 @@
 package im.nll.data.extractor.impl;
 
+import im.nll.data.extractor.ExtractContext;
 import im.nll.data.extractor.ListableExtractor;
 import im.nll.data.extractor.annotation.Name;
+import im.nll.data.extractor.exception.ExtractException;
 import im.nll.data.extractor.utils.StringUtils;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
 import org.jsoup.parser.Parser;
 import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * * 一个使用Jquery选择器的抽取器
@@ -31,10 +40,18 @@ import java.util.List;
 public class SelectorExtractor implements ListableExtractor {
     private final static String TYPE_TEXT = "text";
     private final static String TYPE_HTML = "html";
+    final static String XML_DOCUMENT = "jsoup.xml";
+    final static String HTML_DOCUMENT = "jsoup.html";
+    private final static String XML_RECORD = "jsoup.xml.record";
+    private final static String HTML_RECORD = "jsoup.html.record";
     /**
      * css selector
      */
     private String query;
+    /**
+     * the compiled css selector, thread-safe and reused for every document.
+     */
+    private Evaluator evaluator;
     /**
      * the element index
      */
@@ -50,6 +67,10 @@ public class SelectorExtractor implements ListableExtractor {
      * data parser. default xmlParser.
      */
     private Parser parser = Parser.xmlParser();
+    /**
+     * parsed document key of the parser.
+     */
+    private String documentKey = XML_DOCUMENT;
 
     /**
      * @param query jquery selector
@@ -58,6 +79,7 @@ public class SelectorExtractor implements ListableExtractor {
     public SelectorExtractor(String query, int eq) {
         this.query = query;
         this.eq = eq;
+        this.evaluator = QueryParser.parse(this.query);
     }
 
     /**
@@ -77,6 +99,7 @@ public class SelectorExtractor implements ListableExtractor {
         } else {
             this.outType = outType;
         }
+        this.evaluator = QueryParser.parse(this.query);
     }
 
     public SelectorExtractor(String query) {
@@ -94,6 +117,7 @@ public class SelectorExtractor implements ListableExtractor {
             this.query = StringUtils.substringBeforeLast(query, "." + outType);
             this.outType = StringUtils.substringBetween(outType, "(", ")");
         }
+        this.evaluator = QueryParser.parse(this.query);
     }
 
     /**
@@ -103,23 +127,29 @@ public class SelectorExtractor implements ListableExtractor {
      */
     public SelectorExtractor htmlParser() {
         this.parser = Parser.htmlParser();
+        this.documentKey = HTML_DOCUMENT;
         return this;
     }
 
 
     @Override
     public String extract(String data) {
-        Document document = Jsoup.parse(data, "", parser);
+        return extract(ExtractContext.of(data));
+    }
+
+    @Override
+    public String extract(ExtractContext context) {
+        Element document = parse(context);
         String result = "";
         switch (outType) {
             case TYPE_TEXT:
-                result = document.select(query).eq(eq).text();
+                result = document.select(evaluator).eq(eq).text();
                 break;
             case TYPE_HTML:
-                result = document.select(query).eq(eq).html();
+                result = document.select(evaluator).eq(eq).html();
                 break;
             default:
-                result = document.select(query).eq(eq).attr(outType);
+                result = document.select(evaluator).eq(eq).attr(outType);
                 break;
         }
         return result;
@@ -127,9 +157,14 @@ public class SelectorExtractor implements ListableExtractor {
 
     @Override
     public List<String> extractList(String content) {
+        return extractList(ExtractContext.of(content));
+    }
+
+    @Override
+    public List<String> extractList(ExtractContext context) {
         List<String> strings = new LinkedList<>();
-        Document document = Jsoup.parse(content, "", parser);
-        Elements elements = document.select(query);
+        Element document = parse(context);
+        Elements elements = document.select(evaluator);
         for (Element element : elements) {
             switch (outType) {
                 case TYPE_TEXT:
@@ -145,4 +180,103 @@ public class SelectorExtractor implements ListableExtractor {
         }
         return strings;
     }
+
+    /**
+     * split to the matched elements. when out type is html, the records keep the matched elements, and
+     * selector extractors with the same parser select in them without parsing the html again.
+     *
+     * @param context
+     * @return
+     */
+    @Override
+    public List<ExtractContext> split(ExtractContext context) {
+        if (!TYPE_HTML.equals(outType)) {
+            return ListableExtractor.super.split(context);
+        }
+        Elements elements = parse(context).select(evaluator);
+        List<ExtractContext> records = new ArrayList<>(elements.size());
+        boolean html = HTML_DOCUMENT.equals(documentKey);
+        for (Element element : elements) {
+            records.add(record(html, element, element::html));
+        }
+        return records;
+    }
+
+    /**
+     * a split record which keeps the matched element of the xml or html parser.
+     * <p>selector extractors of the same parser select only in the descendants of the element, like in its parsed
+     * inner html. jsoup xpath extractors read the element as the root of absolute paths.</p>
+     *
+     * @param html    the element is parsed by html parser
+     * @param element
+     * @param data    serialize the record
+     * @return
+     */
+    static ExtractContext record(boolean html, Element element, Supplier<String> data) {
+        return ExtractContext.of(html ? HTML_RECORD : XML_RECORD, element, data);
+    }
+
+    /**
+     * copy the children of the element to a detached document with the output settings of its document,
+     * so the element and its ancestors are not selectable. the copy is made when a selector first reads the record.
+     *
+     * @param element
+     * @return
+     */
+    private static Element shell(Element element) {
+        Document shell = new Document("");
+        Document owner = element.ownerDocument();
+        if (owner != null) {
+            shell.outputSettings(owner.outputSettings().clone());
+            shell.parser(owner.parser());
+        }
+        for (Node child : element.childNodes()) {
+            shell.appendChild(child.clone());
+        }
+        return shell;
+    }
+
+    /**
+     * parse data once per parser kind, xml and html parser build different documents.
+     * the document of a split record is the shell of the matched element.
+     *
+     * @param context
+     * @return
+     */
+    private Element parse(ExtractContext context) {
+        return context.getDocument(documentKey, one -> {
+            Element record = one.getDocument(HTML_DOCUMENT.equals(documentKey) ? HTML_RECORD : XML_RECORD);
+            return record != null ? shell(record) : createDocument(one, parser);
+        });
+    }
+
+    /**
+     * the document parsed by the xml or html parser, shared with the selector extractors of the same parser.
+     * the element of a split record is the root itself.
+     *
+     * @param context
+     * @param html    use html parser
+     * @return
+     */
+    static Element parse(ExtractContext context, boolean html) {
+        Element record = context.getDocument(html ? HTML_RECORD : XML_RECORD);
+        if (record != null) {
+            return record;
+        }
+        if (html) {
+            return context.getDocument(HTML_DOCUMENT, one -> createDocument(one, Parser.htmlParser()));
+        }
+        return context.getDocument(XML_DOCUMENT, one -> createDocument(one, Parser.xmlParser()));
+    }
+
+    private static Element createDocument(ExtractContext context, Parser parser) {
+        if (!context.isBinary()) {
+            return Jsoup.parse(context.getData(), "", parser);
+        }
+        try (InputStream in = context.openStream()) {
+            return Jsoup.parse(in, context.getCharset().name(), "", parser);
+        } catch (IOException e) {
+            throw new ExtractException(e);
+        }
+    }
 }
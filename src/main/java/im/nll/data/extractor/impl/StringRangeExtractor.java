@@ -1,10 +1,14 @@
 package im.nll.data.extractor.impl;
 
+import im.nll.data.extractor.ExtractContext;
 import im.nll.data.extractor.ListableExtractor;
 import im.nll.data.extractor.annotation.Name;
 import im.nll.data.extractor.utils.StringUtils;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
@@ -41,4 +45,47 @@ public class StringRangeExtractor implements ListableExtractor {
     public List<String> extractList(String data) {
         return StringUtils.substringsBetween(data, open, close, tokenReservedFlag);
     }
+
+    /**
+     * find the ranges one by one, same as {@link #extractList(String)}.
+     *
+     * @param context
+     * @return
+     */
+    @Override
+    public Iterator<ExtractContext> splitIterator(ExtractContext context) {
+        String data = context.getData();
+        if (data == null || StringUtils.isNullOrEmpty(open) || StringUtils.isNullOrEmpty(close)) {
+            return Collections.emptyIterator();
+        }
+        return new Iterator<ExtractContext>() {
+            private int pos = 0;
+            private String next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && pos >= 0 && pos < data.length() - close.length()) {
+                    int start = data.indexOf(open, pos);
+                    int end = start < 0 ? -1 : data.indexOf(close, start + open.length());
+                    if (end < 0) {
+                        pos = -1;
+                    } else {
+                        next = tokenReservedFlag ? data.substring(start, end + close.length()) : data.substring(start + open.length(), end);
+                        pos = end + close.length();
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public ExtractContext next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ExtractContext record = ExtractContext.of(next);
+                next = null;
+                return record;
+            }
+        };
+    }
 }
@@ -1,5 +1,6 @@
 package im.nll.data.extractor.impl;
 
+import im.nll.data.extractor.ExtractContext;
 import im.nll.data.extractor.ListableExtractor;
 import im.nll.data.extractor.annotation.Name;
 import im.nll.data.extractor.exception.ExtractException;
@@ -7,25 +8,36 @@ import im.nll.data.extractor.utils.Logs;
 import im.nll.data.extractor.utils.XmlUtils;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.htmlcleaner.CleanerProperties;
-import org.htmlcleaner.DomSerializer;
 import org.htmlcleaner.HtmlCleaner;
+import org.htmlcleaner.JDomSerializer;
 import org.htmlcleaner.TagNode;
+import org.jaxen.BaseXPath;
+import org.jaxen.Context;
+import org.jaxen.ContextSupport;
+import org.jaxen.JaxenException;
+import org.jaxen.function.StringFunction;
 import org.jdom2.*;
 import org.jdom2.filter.Filters;
-import org.jdom2.input.DOMBuilder;
 import org.jdom2.input.SAXBuilder;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 import org.jdom2.xpath.XPathExpression;
 import org.jdom2.xpath.XPathFactory;
 import org.slf4j.Logger;
+import org.xml.sax.InputSource;
 
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
@@ -35,10 +47,48 @@ import java.util.List;
 @Name("xpath")
 public class XPathExtractor implements ListableExtractor {
     private static final Logger LOGGER = Logs.get();
+    /**
+     * max size of the shared compiled expression cache.
+     */
+    private static final int CACHE_SIZE = 512;
+    /**
+     * compiled expressions shared by all extractors, keyed by expression and namespaces.
+     */
+    private static final Map<String, XPathExpression<Object>> EXPRESSION_CACHE = Collections.synchronizedMap(new LinkedHashMap<String, XPathExpression<Object>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, XPathExpression<Object>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+    /**
+     * cleaner properties of fixhtml, only read after they are configured.
+     */
+    private static final CleanerProperties CLEANER_PROPERTIES = cleanerProperties();
+    /**
+     * report cdata sections of the jdk stax parser.
+     */
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+    /**
+     * stax factory of the streaming split, configured once.
+     */
+    private static final XMLInputFactory XML_INPUT_FACTORY = xmlInputFactory();
+    private static final Comparator<Attribute> ATTRIBUTE_ORDER = Comparator.comparing(Attribute::getQualifiedName);
     private String xpath;
     private boolean removeNamespace = false;
     private boolean fixhtml = false;
+    /**
+     * evaluate on the jsoup document, null means jdom.
+     */
+    private Boolean jsoupHtml;
     List<Namespace> namespaces = new ArrayList<>();
+    /**
+     * the compiled expression, reset when register namespace.
+     */
+    private volatile XPathExpression<Object> expression;
+    /**
+     * the compiled expression of jsoup documents.
+     */
+    private volatile BaseXPath jsoupExpression;
 
     public XPathExtractor(String xpath) {
         this.xpath = xpath;
@@ -62,6 +112,7 @@ public class XPathExtractor implements ListableExtractor {
      */
     public XPathExtractor registerNamespace(Namespace namespace) {
         this.namespaces.add(namespace);
+        this.expression = null;
         return this;
     }
 
@@ -74,6 +125,7 @@ public class XPathExtractor implements ListableExtractor {
      */
     public XPathExtractor registerNamespace(String prefix, String url) {
         this.namespaces.add(Namespace.getNamespace(prefix, url));
+        this.expression = null;
         return this;
     }
 
@@ -87,12 +139,43 @@ public class XPathExtractor implements ListableExtractor {
         return this;
     }
 
+    /**
+     * evaluate on the jsoup document of xml parser, which is shared with {@link SelectorExtractor}, so xpath
+     * and selector on the same data parse it once. fixhtml and namespace options are not used, see {@link JsoupNavigator}.
+     *
+     * @return
+     */
+    public XPathExtractor jsoup() {
+        this.jsoupHtml = false;
+        return this;
+    }
+
+    /**
+     * evaluate on the jsoup document of html parser, which is shared with {@link SelectorExtractor#htmlParser()}.
+     *
+     * @return
+     */
+    public XPathExtractor jsoupHtml() {
+        this.jsoupHtml = true;
+        return this;
+    }
+
     @Override
     public String extract(String data) {
+        return extract(ExtractContext.of(data));
+    }
+
+    @Override
+    public String extract(ExtractContext context) {
+        if (jsoupHtml != null) {
+            org.jsoup.nodes.Element root = SelectorExtractor.parse(context, jsoupHtml);
+            List<?> nodes = evaluateJsoup(root);
+            return nodes.isEmpty() ? "" : wrapJsoup(nodes.get(0), root);
+        }
         String result = "";
         try {
-            Document doc = createDom(data);
-            XPathExpression xp = createXpathExpression();
+            Document doc = parse(context);
+            XPathExpression<Object> xp = createXpathExpression();
             Object text = xp.evaluateFirst(doc);
             result = wrap(text);
         } catch (Exception e) {
@@ -103,10 +186,22 @@ public class XPathExtractor implements ListableExtractor {
 
     @Override
     public List<String> extractList(String data) {
+        return extractList(ExtractContext.of(data));
+    }
+
+    @Override
+    public List<String> extractList(ExtractContext context) {
         List<String> stringList = new LinkedList<>();
+        if (jsoupHtml != null) {
+            org.jsoup.nodes.Element root = SelectorExtractor.parse(context, jsoupHtml);
+            for (Object node : evaluateJsoup(root)) {
+                stringList.add(wrapJsoup(node, root));
+            }
+            return stringList;
+        }
         try {
-            Document doc = createDom(data);
-            XPathExpression xp = createXpathExpression();
+            Document doc = parse(context);
+            XPathExpression<Object> xp = createXpathExpression();
             List<Object> texts = xp.evaluate(doc);
             for (Object text : texts) {
                 String result = wrap(text);
@@ -118,54 +213,242 @@ public class XPathExtractor implements ListableExtractor {
         return stringList;
     }
 
-    private Document createDom(String data) {
+    /**
+     * split to the matched nodes. the records of elements keep a copy of the element as their own
+     * document, so absolute paths of the field extractors start from the record, as they do on the
+     * serialized record.
+     *
+     * @param context
+     * @return
+     */
+    @Override
+    public List<ExtractContext> split(ExtractContext context) {
+        List<ExtractContext> records = new ArrayList<>();
+        if (jsoupHtml != null) {
+            org.jsoup.nodes.Element root = SelectorExtractor.parse(context, jsoupHtml);
+            for (Object node : evaluateJsoup(root)) {
+                records.add(toJsoupRecord(node, root));
+            }
+            return records;
+        }
+        for (Object node : evaluate(context)) {
+            records.add(toRecord(node));
+        }
+        return records;
+    }
+
+    /**
+     * split to the matched nodes lazily. a path of element names, such as /feed/item or //item, is matched while
+     * the xml is read, only the element of the current record is built, so the xml doesn't need to fit in memory.
+     * other paths, fixhtml and jsoup evaluate the parsed document, and an element is copied only when its record
+     * is asked for. the streaming iterator is {@link Closeable}, close it when the records are not all read.
+     *
+     * @param context
+     * @return
+     */
+    @Override
+    public Iterator<ExtractContext> splitIterator(ExtractContext context) {
+        if (jsoupHtml != null) {
+            return split(context).iterator();
+        }
+        ElementPath path = fixhtml ? null : ElementPath.parse(xpath);
+        // the parsed document is evaluated if another extractor has parsed it
+        if (path != null && context.getDocument(documentKey()) == null) {
+            return new StreamRecords(context, path);
+        }
+        Iterator<Object> nodes = evaluate(context).iterator();
+        return new Iterator<ExtractContext>() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public ExtractContext next() {
+                return toRecord(nodes.next());
+            }
+        };
+    }
+
+    private List<Object> evaluate(ExtractContext context) {
+        try {
+            return createXpathExpression().evaluate(parse(context));
+        } catch (Exception e) {
+            throw new ExtractException(e);
+        }
+    }
+
+    private ExtractContext toRecord(Object node) {
+        if (node instanceof Element) {
+            Element element = (Element) node;
+            return ExtractContext.of(documentKey(), new Document(element.clone()), () -> wrap(element));
+        }
+        return ExtractContext.of(wrap(node));
+    }
+
+    /**
+     * the records of jsoup elements keep the elements, absolute paths of jsoup xpath start from the record,
+     * selector fields select in its descendants, same as the records of {@link SelectorExtractor#split(ExtractContext)}.
+     */
+    private ExtractContext toJsoupRecord(Object node, org.jsoup.nodes.Element root) {
+        if (node instanceof org.jsoup.nodes.Element) {
+            org.jsoup.nodes.Element element = (org.jsoup.nodes.Element) node;
+            return SelectorExtractor.record(jsoupHtml, element, () -> wrapJsoup(element, root));
+        }
+        return ExtractContext.of(wrapJsoup(node, root));
+    }
+
+    private List<?> evaluateJsoup(org.jsoup.nodes.Element root) {
+        JsoupNavigator navigator = new JsoupNavigator(root);
+        try {
+            BaseXPath xp = createJsoupExpression();
+            Context context = new Context(new ContextSupport(xp.getNamespaceContext(), xp.getFunctionContext(), xp.getVariableContext(), navigator));
+            context.setNodeSet(Collections.singletonList(navigator.getDocumentNode(root)));
+            Object result = xp.getRootExpr().evaluate(context);
+            return result instanceof List ? (List<?>) result : Collections.singletonList(result);
+        } catch (JaxenException e) {
+            throw new ExtractException(e);
+        }
+    }
+
+    private BaseXPath createJsoupExpression() throws JaxenException {
+        BaseXPath xp = jsoupExpression;
+        if (xp == null) {
+            // the navigator is given when evaluating
+            xp = new BaseXPath(xpath, null);
+            jsoupExpression = xp;
+        }
+        return xp;
+    }
+
+    private String wrapJsoup(Object node, org.jsoup.nodes.Element root) {
+        if (node instanceof org.jsoup.nodes.Element) {
+            return StringEscapeUtils.unescapeHtml4(((org.jsoup.nodes.Element) node).outerHtml());
+        }
+        return StringFunction.evaluate(node, new JsoupNavigator(root));
+    }
+
+    /**
+     * parse data once per parse options, fixhtml and removeNamespace build different documents.
+     *
+     * @param context
+     * @return
+     */
+    private Document parse(ExtractContext context) {
+        return context.getDocument(documentKey(), this::createDom);
+    }
+
+    private String documentKey() {
+        return XPathExtractor.class.getName() + (fixhtml ? ".fixhtml" : "") + (removeNamespace ? ".removeNamespace" : "");
+    }
+
+    private Document createDom(ExtractContext context) {
+        // binary data is read as a stream, namespaces are removed while parsing
+        String data = context.isBinary() ? null : context.getData();
         // clean html use htmlcleaner
         if (fixhtml) {
-            HtmlCleaner cleaner = new HtmlCleaner();
-            CleanerProperties props = cleaner.getProperties();
-            props.setUseCdataForScriptAndStyle(false);
-            props.setRecognizeUnicodeChars(true);
-            props.setUseEmptyElementTags(true);
-            props.setAdvancedXmlEscape(true);
-            props.setTranslateSpecialEntities(false);
-            props.setBooleanAttributeValues("empty");
-            props.setAllowHtmlInsideAttributes(true);
-            props.setPruneTags("script,style");
-
+            HtmlCleaner cleaner = new HtmlCleaner(CLEANER_PROPERTIES);
             try {
-                if (removeNamespace) {
-                    data = XmlUtils.removeNamespace(data);
+                TagNode tagNode;
+                if (data != null) {
+                    tagNode = cleaner.clean(data);
+                } else {
+                    try (InputStream in = context.openStream()) {
+                        tagNode = cleaner.clean(in, context.getCharset().name());
+                    }
                 }
-                TagNode tagNode = cleaner.clean(data);
-                org.w3c.dom.Document doc = null;
-                try {
-                    doc = new DomSerializer(props, false).createDOM(tagNode);
-                } catch (ParserConfigurationException e) {
-                    LOGGER.error("conver dom error!", e);
-                }
-                DOMBuilder in = new DOMBuilder();
-                Document jdomDoc = in.build(doc);
+                // serialize the cleaned tree to jdom directly
+                Document jdomDoc = new JDomSerializer(CLEANER_PROPERTIES, false).createJDom(tagNode);
+                normalize(jdomDoc.getRootElement());
                 return jdomDoc;
             } catch (Exception e) {
                 throw new ExtractException(e);
             }
         } else {
             SAXBuilder sax = new SAXBuilder();
+            if (removeNamespace) {
+                sax.setXMLFilter(XmlUtils.namespaceFilter());
+            }
             try {
-                if (removeNamespace) {
-                    data = XmlUtils.removeNamespace(data);
+                if (data != null) {
+                    return sax.build(new StringReader(data));
+                }
+                try (InputStream in = context.openStream()) {
+                    InputSource source = new InputSource(in);
+                    source.setEncoding(context.getCharset().name());
+                    return sax.build(source);
                 }
-                Document doc = sax.build(new StringReader(data));
-                return doc;
             } catch (Exception e) {
                 throw new ExtractException(e);
             }
         }
     }
 
-    private XPathExpression createXpathExpression() {
+    private static CleanerProperties cleanerProperties() {
+        CleanerProperties props = new CleanerProperties();
+        props.setUseCdataForScriptAndStyle(false);
+        props.setRecognizeUnicodeChars(true);
+        props.setUseEmptyElementTags(true);
+        props.setAdvancedXmlEscape(true);
+        props.setTranslateSpecialEntities(false);
+        props.setBooleanAttributeValues("empty");
+        props.setAllowHtmlInsideAttributes(true);
+        props.setPruneTags("script,style");
+        // the cleaner sets the default tag provider of the properties
+        new HtmlCleaner(props);
+        return props;
+    }
+
+    /**
+     * keep the cleaned html the same as it was built by dom: attributes are in the order of their names.
+     * namespaces are removed too with removeNamespace, the same as {@link XmlUtils#namespaceFilter()} does while parsing.
+     *
+     * @param element
+     */
+    private void normalize(Element element) {
+        if (removeNamespace) {
+            element.setNamespace(Namespace.NO_NAMESPACE);
+            for (Namespace namespace : new ArrayList<>(element.getAdditionalNamespaces())) {
+                element.removeNamespaceDeclaration(namespace);
+            }
+        }
+        if (element.hasAttributes()) {
+            if (removeNamespace) {
+                for (Attribute attribute : new ArrayList<>(element.getAttributes())) {
+                    if (attribute.getNamespace() != Namespace.NO_NAMESPACE) {
+                        attribute.detach();
+                        element.setAttribute(attribute.getName(), attribute.getValue());
+                    }
+                }
+            }
+            element.sortAttributes(ATTRIBUTE_ORDER);
+        }
+        for (Element child : element.getChildren()) {
+            normalize(child);
+        }
+    }
+
+    private XPathExpression<Object> createXpathExpression() {
+        XPathExpression<Object> xp = expression;
+        if (xp == null) {
+            // jdom caches namespace nodes in the expression when evaluating the namespace axis, don't share it.
+            if (xpath.contains("namespace::")) {
+                return compile();
+            }
+            String key = cacheKey();
+            xp = EXPRESSION_CACHE.get(key);
+            if (xp == null) {
+                xp = compile();
+                EXPRESSION_CACHE.put(key, xp);
+            }
+            expression = xp;
+        }
+        return xp;
+    }
+
+    private XPathExpression<Object> compile() {
         XPathFactory xpfac = XPathFactory.instance();
-        XPathExpression xp = null;
+        XPathExpression<Object> xp = null;
         if (namespaces.isEmpty()) {
             xp = xpfac.compile(xpath, Filters.fpassthrough());
         } else {
@@ -174,6 +457,17 @@ public class XPathExtractor implements ListableExtractor {
         return xp;
     }
 
+    private String cacheKey() {
+        if (namespaces.isEmpty()) {
+            return xpath;
+        }
+        StringBuilder key = new StringBuilder(xpath);
+        for (Namespace namespace : namespaces) {
+            key.append(' ').append(namespace.getPrefix()).append('=').append(namespace.getURI());
+        }
+        return key.toString();
+    }
+
     private String wrap(Object text) {
         if (text != null) {
             if (text instanceof Attribute) {
@@ -192,4 +486,271 @@ public class XPathExtractor implements ListableExtractor {
         }
         return "";
     }
+
+    /**
+     * name of an element in a path, the namespace is part of it unless namespaces are removed.
+     */
+    private String name(String uri, String localName) {
+        return removeNamespace || uri == null || uri.isEmpty() ? localName : "{" + uri + "}" + localName;
+    }
+
+    private static XMLInputFactory xmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // keep the cdata sections, as the sax builder does
+        if (factory.isPropertySupported(REPORT_CDATA)) {
+            factory.setProperty(REPORT_CDATA, Boolean.TRUE);
+        }
+        return factory;
+    }
+
+    /**
+     * an absolute path of element names which is matched while streaming, the steps are '/name' or '//name',
+     * the name may be '*'. the names have no prefix, so they match the elements without namespace, or all
+     * elements when namespaces are removed.
+     */
+    private static final class ElementPath {
+        private static final Pattern PATH = Pattern.compile("(?:/{1,2}(?:[A-Za-z_][\\w.\\-]*|\\*))+");
+        private static final Pattern STEP = Pattern.compile("(/{1,2})([^/]+)");
+        private final List<String> names = new ArrayList<>();
+        private final List<Boolean> descendants = new ArrayList<>();
+
+        /**
+         * @param xpath
+         * @return null if the xpath is not a path of element names
+         */
+        private static ElementPath parse(String xpath) {
+            if (!PATH.matcher(xpath).matches()) {
+                return null;
+            }
+            ElementPath path = new ElementPath();
+            Matcher matcher = STEP.matcher(xpath);
+            while (matcher.find()) {
+                path.descendants.add(matcher.group(1).length() == 2);
+                path.names.add(matcher.group(2));
+            }
+            return path;
+        }
+
+        /**
+         * whether the element of the names, from the root element, is matched.
+         */
+        private boolean matches(List<String> elements) {
+            return matches(0, elements, 0);
+        }
+
+        private boolean matches(int step, List<String> elements, int from) {
+            if (step == names.size()) {
+                return from == elements.size();
+            }
+            String name = names.get(step);
+            int last = descendants.get(step) ? elements.size() - 1 : from;
+            for (int i = from; i <= last && i < elements.size(); i++) {
+                if (("*".equals(name) || name.equals(elements.get(i))) && matches(step + 1, elements, i + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * reads the xml event by event and builds only the matched elements. the records of nested matched elements
+     * follow the record of their matched ancestor, in document order.
+     */
+    private final class StreamRecords implements Iterator<ExtractContext>, Closeable {
+        private final ElementPath path;
+        private final Closeable input;
+        private final XMLStreamReader reader;
+        // names of the open elements, from the root element
+        private final List<String> names = new ArrayList<>();
+        private final Deque<ExtractContext> records = new ArrayDeque<>();
+        private boolean closed;
+
+        private StreamRecords(ExtractContext context, ElementPath path) {
+            this.path = path;
+            Closeable input = null;
+            try {
+                if (context.isBinary()) {
+                    InputStream in = context.openStream();
+                    input = in;
+                    this.reader = XML_INPUT_FACTORY.createXMLStreamReader(in, context.getCharset().name());
+                } else {
+                    Reader in = new StringReader(context.getData());
+                    input = in;
+                    this.reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+                }
+            } catch (IOException | XMLStreamException e) {
+                closeQuietly(input);
+                throw new ExtractException(e);
+            }
+            this.input = input;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (records.isEmpty() && !closed) {
+                read();
+            }
+            return !records.isEmpty();
+        }
+
+        @Override
+        public ExtractContext next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return records.poll();
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                records.clear();
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignore) {
+                }
+                closeQuietly(input);
+            }
+        }
+
+        /**
+         * read the next event, the records of a matched element are queued when its end is read.
+         */
+        private void read() {
+            try {
+                if (!reader.hasNext()) {
+                    close();
+                    return;
+                }
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    names.add(name(reader.getNamespaceURI(), reader.getLocalName()));
+                    if (path.matches(names)) {
+                        Element element = buildElement();
+                        records.add(ExtractContext.of(documentKey(), new Document(element), () -> wrap(element)));
+                        addNested(element);
+                        names.remove(names.size() - 1);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    names.remove(names.size() - 1);
+                } else if (event == XMLStreamConstants.END_DOCUMENT) {
+                    close();
+                }
+            } catch (XMLStreamException e) {
+                close();
+                throw new ExtractException(e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void addNested(Element element) {
+            for (Element child : element.getChildren()) {
+                names.add(name(child.getNamespaceURI(), child.getName()));
+                if (path.matches(names)) {
+                    records.add(toRecord(child));
+                }
+                addNested(child);
+                names.remove(names.size() - 1);
+            }
+        }
+
+        /**
+         * build the element at the start event, same as the sax builder: adjacent characters are one text.
+         * the reader is left at the end event of the element.
+         */
+        private Element buildElement() throws XMLStreamException {
+            Element element = createElement();
+            Element current = element;
+            StringBuilder text = new StringBuilder();
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                switch (event) {
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        text.append(reader.getText());
+                        break;
+                    case XMLStreamConstants.START_ELEMENT:
+                        addText(current, text);
+                        Element child = createElement();
+                        current.addContent(child);
+                        current = child;
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        addText(current, text);
+                        current = current.getParentElement();
+                        depth--;
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        addText(current, text);
+                        current.addContent(new CDATA(reader.getText()));
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        addText(current, text);
+                        current.addContent(new Comment(reader.getText()));
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        addText(current, text);
+                        current.addContent(new ProcessingInstruction(reader.getPITarget(), reader.getPIData() == null ? "" : reader.getPIData()));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return element;
+        }
+
+        private void addText(Element element, StringBuilder text) {
+            if (text.length() > 0) {
+                element.addContent(new Text(text.toString()));
+                text.setLength(0);
+            }
+        }
+
+        /**
+         * create the element of the start event, namespaces are dropped as {@link XmlUtils#namespaceFilter()} does.
+         */
+        private Element createElement() {
+            Element element;
+            if (removeNamespace) {
+                element = new Element(reader.getLocalName());
+            } else {
+                element = new Element(reader.getLocalName(), namespace(reader.getPrefix(), reader.getNamespaceURI()));
+                for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                    Namespace namespace = namespace(reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+                    if (!namespace.equals(element.getNamespace()) && namespace != Namespace.NO_NAMESPACE) {
+                        element.addNamespaceDeclaration(namespace);
+                    }
+                }
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String uri = reader.getAttributeNamespace(i);
+                if (removeNamespace || uri == null || uri.isEmpty()) {
+                    element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                } else {
+                    element.setAttribute(new Attribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i),
+                            namespace(reader.getAttributePrefix(i), uri)));
+                }
+            }
+            return element;
+        }
+
+        private Namespace namespace(String prefix, String uri) {
+            return Namespace.getNamespace(prefix == null ? "" : prefix, uri == null ? "" : uri);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
 }
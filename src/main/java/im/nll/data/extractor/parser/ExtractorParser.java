@@ -2,16 +2,24 @@ package im.nll.data.extractor.parser;
 
 import im.nll.data.extractor.Extractor;
 import im.nll.data.extractor.annotation.Name;
+import im.nll.data.extractor.annotation.NameIndexProcessor;
 import im.nll.data.extractor.exception.ParseException;
 import im.nll.data.extractor.utils.AnnotationClassScanner;
 import im.nll.data.extractor.utils.Logs;
 import im.nll.data.extractor.utils.Reflect;
+import im.nll.data.extractor.utils.Resources;
 import im.nll.data.extractor.utils.StringUtils;
 import org.slf4j.Logger;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 /**
  * parse extractor from string.
@@ -24,16 +32,21 @@ public class ExtractorParser {
     private static Logger LOGGER = Logs.get();
     private static Map<String, Class<? extends Extractor>> extractorMap = new HashMap<>();
     private static final String SPLIT_CHAR = ":";
+    private static final String SHORT_STRING_FACTORY = "fromShortString";
 
     static {
-        String packageName = Extractor.class.getPackage().getName() + ".impl";
-        LOGGER.debug("scan package:{}", packageName);
-        Set<Class<?>> classes = AnnotationClassScanner.scan(Name.class, packageName);
+        Set<Class<?>> classes = loadIndex();
+        if (classes.isEmpty()) {
+            // no index, such as classes compiled by an ide without annotation processing
+            String packageName = Extractor.class.getPackage().getName() + ".impl";
+            LOGGER.debug("scan package:{}", packageName);
+            classes = AnnotationClassScanner.scan(Name.class, packageName);
+        }
         for (Class<?> clazz : classes) {
             // 不是接口的才一起玩.
             if (!clazz.isInterface()) {
                 Name cityAnnotation = clazz.getAnnotation(Name.class);
-                String[] cities = cityAnnotation.value();
+                String[] cities = cityAnnotation == null ? null : cityAnnotation.value();
                 if (cities != null) {
                     for (String city : cities) {
                         LOGGER.debug("added '{}' extractor implement.", city);
@@ -47,14 +60,79 @@ public class ExtractorParser {
         }
     }
 
+    /**
+     * load the extractor classes from the indexes written by {@link NameIndexProcessor}.
+     *
+     * @return
+     */
+    private static Set<Class<?>> loadIndex() {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        try {
+            Enumeration<URL> indexes = ExtractorParser.class.getClassLoader().getResources(NameIndexProcessor.INDEX);
+            while (indexes.hasMoreElements()) {
+                URL index = indexes.nextElement();
+                LOGGER.debug("load extractor index:{}", index);
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                    String className;
+                    while ((className = reader.readLine()) != null) {
+                        className = className.trim();
+                        if (className.isEmpty()) {
+                            continue;
+                        }
+                        try {
+                            classes.add(Resources.classForName(className));
+                        } catch (ClassNotFoundException e) {
+                            LOGGER.debug("load class error . className:{}", className);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("load extractor index error", e);
+        }
+        return classes;
+    }
+
     public static Extractor parse(String shortString) {
         String type = StringUtils.substringBefore(shortString, SPLIT_CHAR);
         Class extractorClass = extractorMap.get(type);
         if (extractorClass == null) {
             throw new ParseException("parse extractor error! unsupport extractor:'" + type + "'. string:'" + shortString + "'");
         }
-        Extractor extractor = Reflect.on(extractorClass)
-                .create(StringUtils.substringAfter(shortString, type + SPLIT_CHAR)).get();
+        String value = StringUtils.substringAfter(shortString, type + SPLIT_CHAR);
+        Method factory = shortStringFactory(extractorClass);
+        if (factory != null) {
+            try {
+                return (Extractor) factory.invoke(null, value);
+            } catch (IllegalAccessException e) {
+                throw new ParseException("parse extractor error! string:'" + shortString + "'", e);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new ParseException("parse extractor error! string:'" + shortString + "'", cause);
+            }
+        }
+        Extractor extractor = Reflect.on(extractorClass).create(value).get();
         return extractor;
     }
+
+    /**
+     * extractors which have options in the short string, such as the group of regex, parse it by
+     * a public static 'fromShortString(String)' method, others are created by the string constructor.
+     *
+     * @param extractorClass
+     * @return
+     */
+    private static Method shortStringFactory(Class<?> extractorClass) {
+        try {
+            Method factory = extractorClass.getMethod(SHORT_STRING_FACTORY, String.class);
+            if (Modifier.isStatic(factory.getModifiers()) && extractorClass.isAssignableFrom(factory.getReturnType())) {
+                return factory;
+            }
+        } catch (NoSuchMethodException ignore) {
+        }
+        return null;
+    }
 }
@@ -454,6 +454,31 @@ public class StringUtils {
         return StringUtils.isNullOrEmpty(content) ? "" : content;
     }
 
+    /**
+     * collapse whitespaces to one space and trim, as the text of jsoup.
+     */
+    public static String normalizeWhitespace(CharSequence text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean lastWhitespace = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '\u00a0') {
+                if (!lastWhitespace) {
+                    normalized.append(' ');
+                    lastWhitespace = true;
+                }
+            } else {
+                normalized.append(c);
+                lastWhitespace = false;
+            }
+        }
+        int length = normalized.length();
+        if (length > 0 && normalized.charAt(length - 1) == ' ') {
+            normalized.setLength(length - 1);
+        }
+        return normalized.toString();
+    }
+
     /**
      * 支持的格式串：yyyy,yy,MM,M,dd,d ,其中:
      * yyyy（四位年），yy（两位年），MM（两位月，如果不足两位，前导0补齐），M（月，不补齐），dd(两位日，如果不足两位，前导0补齐)，d(日，
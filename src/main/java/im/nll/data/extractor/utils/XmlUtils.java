@@ -1,9 +1,22 @@
 package im.nll.data.extractor.utils;
 
-import javax.xml.transform.*;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLFilter;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
-import java.io.*;
+import java.io.StringReader;
+import java.io.StringWriter;
 
 /**
  * Utilities methods for XML files.
@@ -18,22 +31,83 @@ public class XmlUtils {
      * @throws TransformerException the TransformerException
      */
     public static String removeNamespace(String xmlSource) throws TransformerException {
-        TransformerFactory factory = TransformerFactory.newInstance();
-        InputStream xsltRemoveNamespace = XmlUtils.class.getResourceAsStream("/remove-namespace.xslt");
-        if (xsltRemoveNamespace == null)
-            throw new ExceptionInInitializerError(new FileNotFoundException("No XSLT resource is found!"));
-        Templates transformer = factory.newTemplates(new StreamSource(xsltRemoveNamespace));
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Result result = new StreamResult(baos);
-        Source src = new StreamSource(new StringReader(xmlSource));
-        transformer.newTransformer().transform(src, result);
-        String newXml = baos.toString();
+        XMLFilter filter = namespaceFilter();
         try {
-            xsltRemoveNamespace.close();
-            baos.close();
-        } catch (IOException e) {
-            //eat it
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            filter.setParent(factory.newSAXParser().getXMLReader());
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new TransformerException(e);
+        }
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        StringWriter writer = new StringWriter();
+        transformer.transform(new SAXSource(filter, new InputSource(new StringReader(xmlSource))), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    /**
+     * create a sax filter which removes all namespaces while parsing, elements and attributes keep their
+     * local names and the namespace declarations are dropped.
+     * <p>
+     * NOTE: this will lead to attribute name clash, if an element contains two attributes with same local
+     * name but different namespace prefix, the last one wins.
+     * </p>
+     *
+     * @return
+     */
+    public static XMLFilter namespaceFilter() {
+        return new NamespaceFilter();
+    }
+
+    private static final class NamespaceFilter extends XMLFilterImpl {
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) {
+            // drop the namespace declarations
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) {
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            String name = localName(localName, qName);
+            super.startElement("", name, name, attributes(atts));
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            String name = localName(localName, qName);
+            super.endElement("", name, name);
+        }
+
+        private static Attributes attributes(Attributes atts) {
+            AttributesImpl attributes = new AttributesImpl();
+            for (int i = 0; i < atts.getLength(); i++) {
+                String qName = atts.getQName(i);
+                if ("xmlns".equals(qName) || qName.startsWith("xmlns:")) {
+                    continue;
+                }
+                String name = localName(atts.getLocalName(i), qName);
+                int index = attributes.getIndex(name);
+                if (index >= 0) {
+                    attributes.setValue(index, atts.getValue(i));
+                } else {
+                    attributes.addAttribute("", name, name, atts.getType(i), atts.getValue(i));
+                }
+            }
+            return attributes;
+        }
+
+        private static String localName(String localName, String qName) {
+            if (localName != null && !localName.isEmpty()) {
+                return localName;
+            }
+            int colon = qName.indexOf(':');
+            return colon < 0 ? qName : qName.substring(colon + 1);
         }
-        return newXml;
     }
 }
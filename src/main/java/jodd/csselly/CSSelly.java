@@ -30,7 +30,10 @@ import jodd.util.UnsafeUtil;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * CSS selector parser. Works with one query, i.e. does not support groups
@@ -40,6 +43,18 @@ import java.util.List;
  */
 public class CSSelly {
 
+    /**
+     * Max size of the shared cache of compiled selectors.
+     */
+    private static final int CACHE_SIZE = 512;
+    private static final Map<String, List<List<CssSelector>>> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, List<List<CssSelector>>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<List<CssSelector>>> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
     protected final CSSellyLexer lexer;
 
     public CSSelly(String input) {
@@ -99,6 +114,25 @@ public class CSSelly {
         return selectors;
     }
 
+    /**
+     * Parses string of selectors like {@link #parse(String)}, but returns the
+     * unmodifiable selectors from a shared, bounded cache. Parsed selectors are
+     * not changed while matching, so they can be used by many threads.
+     */
+    public static List<List<CssSelector>> compile(String query) {
+        List<List<CssSelector>> selectors = CACHE.get(query);
+        if (selectors == null) {
+            List<List<CssSelector>> parsed = parse(query);
+            for (int i = 0; i < parsed.size(); i++) {
+                List<CssSelector> one = parsed.get(i);
+                parsed.set(i, one == null ? null : Collections.unmodifiableList(one));
+            }
+            selectors = Collections.unmodifiableList(parsed);
+            CACHE.put(query, selectors);
+        }
+        return selectors;
+    }
+
     // ---------------------------------------------------------------- toString
 
     /**
@@ -25,6 +25,8 @@
 
 package jodd.jerry;
 
+import jodd.csselly.CSSelly;
+import jodd.csselly.CssSelector;
 import jodd.lagarto.dom.*;
 import jodd.util.ArraysUtil;
 import jodd.util.StringUtil;
@@ -39,6 +41,7 @@ public class Jerry implements Iterable<Jerry> {
 
     @SuppressWarnings("CloneableClassWithoutClone")
     private static class NodeList extends ArrayList<Node> {
+        private final Set<Node> set = Collections.newSetFromMap(new IdentityHashMap<>());
 
         private NodeList(int initialCapacity) {
             super(initialCapacity);
@@ -49,12 +52,16 @@ public class Jerry implements Iterable<Jerry> {
 
         @Override
         public boolean add(Node o) {
-            for (Node node : this) {
-                if (node == o) {
-                    return false;
-                }
+            return set.add(o) && super.add(o);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Node> nodes) {
+            boolean modified = false;
+            for (Node node : nodes) {
+                modified |= add(node);
             }
-            return super.add(o);
+            return modified;
         }
     }
 
@@ -296,12 +303,17 @@ public class Jerry implements Iterable<Jerry> {
      */
     public Jerry find(String cssSelector) {
         final List<Node> result = new NodeList();
+        final List<List<CssSelector>> selectors = CSSelly.compile(cssSelector);
 
         for (Node node : nodes) {
             NodeSelector nodeSelector = createNodeSelector(node);
-            List<Node> filteredNodes = nodeSelector.select(cssSelector);
+            List<Node> filteredNodes = nodeSelector.select(selectors);
             result.addAll(filteredNodes);
         }
+        if (nodes.length > 1) {
+            // nodes found from several contexts are merged in the document order
+            NodeSelector.sortInDocumentOrder(result);
+        }
 
         return new Jerry(this, result);
     }
@@ -481,6 +493,7 @@ public class Jerry implements Iterable<Jerry> {
      * the given arguments.
      */
     public boolean is(String cssSelectors) {
+        final List<List<CssSelector>> selectors = CSSelly.compile(cssSelectors);
 
         for (Node node : nodes) {
             Node parentNode = node.getParentNode();
@@ -489,7 +502,7 @@ public class Jerry implements Iterable<Jerry> {
             }
 
             NodeSelector nodeSelector = createNodeSelector(parentNode);
-            List<Node> selectedNodes = nodeSelector.select(cssSelectors);
+            List<Node> selectedNodes = nodeSelector.select(selectors);
 
             for (Node selected : selectedNodes) {
                 if (node == selected) {
@@ -505,6 +518,7 @@ public class Jerry implements Iterable<Jerry> {
      */
     public Jerry filter(String cssSelectors) {
         List<Node> result = new NodeList(nodes.length);
+        final List<List<CssSelector>> selectors = CSSelly.compile(cssSelectors);
 
         for (Node node : nodes) {
             Node parentNode = node.getParentNode();
@@ -513,7 +527,7 @@ public class Jerry implements Iterable<Jerry> {
             }
 
             NodeSelector nodeSelector = createNodeSelector(parentNode);
-            List<Node> selectedNodes = nodeSelector.select(cssSelectors);
+            List<Node> selectedNodes = nodeSelector.select(selectors);
 
             for (Node selected : selectedNodes) {
                 if (node == selected) {
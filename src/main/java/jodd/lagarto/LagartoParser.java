@@ -79,16 +79,75 @@ public class LagartoParser extends Scanner {
         initialize(UnsafeUtil.getChars(string));
     }
 
+    /**
+     * Maximal length of the buffers that are kept between parsings.
+     * Bigger buffers are not reused, so one large content doesn't
+     * hold the memory of a parser.
+     */
+    protected static final int MAX_REUSED_BUFFER_LENGTH = 1 << 20;
+
+    /**
+     * Input buffer owned by the parser, filled by {@link #reset(String)}.
+     */
+    protected char[] inputBuffer;
+
     /**
      * Initializes parser.
      */
+    @Override
     protected void initialize(char[] input) {
-        super.initialize(input);
-        this.tag = new ParsedTag();
-        this.doctype = new ParsedDoctype();
-        this.text = new char[1024];
+        initialize(input, input.length);
+    }
+
+    /**
+     * Initializes parser. Tag, doctype and text buffers are created only
+     * once, they are reused when the parser is {@link #reset(char[]) reset}.
+     */
+    @Override
+    protected void initialize(char[] input, int total) {
+        super.initialize(input, total);
+        if (this.tag == null) {
+            this.tag = new ParsedTag();
+            this.doctype = new ParsedDoctype();
+        }
+        if (this.text == null || this.text.length > MAX_REUSED_BUFFER_LENGTH) {
+            this.text = new char[1024];
+        }
         this.textLen = 0;
         this.parsingTime = -1;
+        this.parsing = false;
+        this.state = DATA_STATE;
+        this.visitor = null;
+    }
+
+    /**
+     * Resets the parser for new content, so one parser may parse
+     * many contents, one after another. Internal buffers are kept,
+     * unless they grew bigger than {@link #MAX_REUSED_BUFFER_LENGTH}.
+     */
+    public LagartoParser reset(char[] charArray) {
+        initialize(charArray);
+        return this;
+    }
+
+    /**
+     * Resets the parser for new content. The string is copied into the
+     * input buffer of the parser, which is reused for the next content.
+     * When parser emits <code>CharBuffer</code>s, they are views of the
+     * input, so the string is copied into a new array instead.
+     */
+    public LagartoParser reset(String string) {
+        int length = string.length();
+        if (!emitStrings || length > MAX_REUSED_BUFFER_LENGTH) {
+            initialize(UnsafeUtil.getChars(string));
+            return this;
+        }
+        if (inputBuffer == null || inputBuffer.length < length) {
+            inputBuffer = new char[Math.max(length, 1024)];
+        }
+        string.getChars(0, length, inputBuffer, 0);
+        initialize(inputBuffer, length);
+        return this;
     }
 
     // ---------------------------------------------------------------- configuration
@@ -123,21 +182,51 @@ public class LagartoParser extends Scanner {
 
         this.visitor = visitor;
 
-        visitor.start();
+        try {
+            visitor.start();
 
-        parsing = true;
+            parsing = true;
 
-        while (parsing) {
-            state.parse();
-        }
+            while (parsing) {
+                state.parse();
+            }
 
-        emitText();
+            emitText();
 
-        visitor.end();
+            visitor.end();
+        } finally {
+            release();
+        }
 
         this.parsingTime = System.currentTimeMillis() - parsingTime;
     }
 
+    /**
+     * Releases the content and the visitor after parsing, as the parser
+     * may be kept for reuse. Buffers bigger than {@link #MAX_REUSED_BUFFER_LENGTH}
+     * are dropped too, they are created again by the next {@link #reset(String) reset}.
+     */
+    protected void release() {
+        this.visitor = null;
+        this.input = null;
+        this.total = 0;
+        this.ndx = -1;
+        if (text != null && text.length > MAX_REUSED_BUFFER_LENGTH) {
+            this.text = null;
+        }
+        if (inputBuffer != null && inputBuffer.length > MAX_REUSED_BUFFER_LENGTH) {
+            this.inputBuffer = null;
+        }
+    }
+
+    /**
+     * Stops parsing after the current token. May be called by the
+     * visitor, the rest of the input is not parsed.
+     */
+    public void stop() {
+        parsing = false;
+    }
+
     /**
      * Returns parsing time in milliseconds.
      */
@@ -1201,6 +1290,7 @@ public class LagartoParser extends Scanner {
 
                 if (c == '&') {
                     consumeCharacterReference();
+                    continue;
                 }
 
                 textEmitChar(c);
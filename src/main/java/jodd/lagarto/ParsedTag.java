@@ -66,6 +66,7 @@ class ParsedTag implements Tag {
      */
     public void init(boolean caseSensitive) {
         this.caseSensitive = caseSensitive;
+        this.deepLevel = 0;
     }
 
     /**
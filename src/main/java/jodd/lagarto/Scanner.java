@@ -49,9 +49,20 @@ class Scanner {
      * Initializes scanner.
      */
     protected void initialize(char[] input) {
+        initialize(input, input.length);
+    }
+
+    /**
+     * Initializes scanner with the content in the first <code>total</code>
+     * characters of the input. Position cache is reset as well.
+     */
+    protected void initialize(char[] input, int total) {
         this.input = input;
         this.ndx = -1;
-        this.total = input.length;
+        this.total = total;
+        this.lastOffset = -1;
+        this.lastLine = 0;
+        this.lastLastNewLineOffset = 0;
     }
 
     // ---------------------------------------------------------------- find
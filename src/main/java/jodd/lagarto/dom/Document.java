@@ -25,8 +25,13 @@
 
 package jodd.lagarto.dom;
 
+import jodd.util.StringUtil;
+
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Document node is always a root node.
@@ -37,6 +42,7 @@ public class Document extends Node {
     protected long elapsedTime;
     protected final LagartoDomBuilderConfig config;
     protected List<String> errors;
+    protected ElementIndex index;
 
     public Document() {
         this(new LagartoDomBuilderConfig());
@@ -103,6 +109,106 @@ public class Document extends Node {
     public void setAttribute(String name, String value) {
     }
 
+    // ---------------------------------------------------------------- index
+
+    /**
+     * Returns elements with given id, in the document order.
+     * Elements are looked up in the {@link #getElementIndex() element index}.
+     */
+    public List<Element> getElementsById(String id) {
+        return lookup(getElementIndex().ids, id);
+    }
+
+    /**
+     * Returns elements having given class, in the document order.
+     */
+    public List<Element> getElementsByClassName(String className) {
+        return lookup(getElementIndex().classes, className);
+    }
+
+    /**
+     * Returns elements with given node name, in the document order.
+     */
+    public List<Element> getElementsByTagName(String nodeName) {
+        return lookup(getElementIndex().names, nodeName);
+    }
+
+    private static List<Element> lookup(Map<String, List<Element>> index, String key) {
+        List<Element> elements = index.get(key);
+        if (elements == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * Returns index of elements by id, class and node name. Index is built
+     * lazily, on first use, and it is dropped on every change of the DOM tree
+     * or element attributes made through the {@link Node} methods.
+     */
+    protected ElementIndex getElementIndex() {
+        ElementIndex elementIndex = index;
+        if (elementIndex == null) {
+            elementIndex = new ElementIndex(this);
+            index = elementIndex;
+        }
+        return elementIndex;
+    }
+
+    /**
+     * Drops the element index.
+     */
+    protected void invalidateIndex() {
+        index = null;
+    }
+
+    /**
+     * Elements by id, class and node name. Element lists are in the document order.
+     */
+    protected static class ElementIndex {
+        protected final Map<String, List<Element>> ids = new HashMap<>();
+        protected final Map<String, List<Element>> classes = new HashMap<>();
+        protected final Map<String, List<Element>> names = new HashMap<>();
+
+        protected ElementIndex(Document document) {
+            List<Node> stack = new ArrayList<>();
+            stack.add(document);
+            while (!stack.isEmpty()) {
+                Node node = stack.remove(stack.size() - 1);
+                if (node.getNodeType() == NodeType.ELEMENT) {
+                    add((Element) node);
+                }
+                for (int i = node.getChildNodesCount() - 1; i >= 0; i--) {
+                    stack.add(node.getChild(i));
+                }
+            }
+        }
+
+        private void add(Element element) {
+            put(names, element.getNodeName(), element);
+            String id = element.getAttribute("id");
+            if (id != null) {
+                put(ids, id, element);
+            }
+            String classNames = element.getAttribute("class");
+            if (classNames != null) {
+                // same words as the class selector matches
+                for (String className : StringUtil.splitc(classNames, ' ')) {
+                    if (className.length() != 0) {
+                        List<Element> elements = classes.get(className);
+                        if (elements == null || elements.get(elements.size() - 1) != element) {
+                            put(classes, className, element);
+                        }
+                    }
+                }
+            }
+        }
+
+        private static void put(Map<String, List<Element>> index, String key, Element element) {
+            index.computeIfAbsent(key, k -> new ArrayList<>(2)).add(element);
+        }
+    }
+
     // ---------------------------------------------------------------- getter
 
     /**
@@ -127,20 +127,45 @@ public class LagartoDOMBuilder implements DOMBuilder {
 
     // ---------------------------------------------------------------- parse
 
+    /**
+     * Parsers reused by the thread, see {@link LagartoParser#reset(String)}.
+     */
+    private static final ThreadLocal<LagartoParser> PARSERS = new ThreadLocal<>();
+
     /**
      * Creates DOM tree from provided content.
      */
     public Document parse(char[] content) {
-        LagartoParser lagartoParser = new LagartoParser(content, true);
-        return doParse(lagartoParser);
+        LagartoParser lagartoParser = PARSERS.get();
+        if (lagartoParser == null) {
+            return parseAndReuse(new LagartoParser(content, true));
+        }
+        return parseAndReuse(lagartoParser.reset(content));
     }
 
     /**
      * Creates DOM tree from the provided content.
      */
     public Document parse(String content) {
-        LagartoParser lagartoParser = new LagartoParser(content, true);
-        return doParse(lagartoParser);
+        LagartoParser lagartoParser = PARSERS.get();
+        if (lagartoParser == null) {
+            return parseAndReuse(new LagartoParser(content, true));
+        }
+        return parseAndReuse(lagartoParser.reset(content));
+    }
+
+    /**
+     * Parses the content and keeps the parser for the next content
+     * of the same thread. The parser is taken out while it parses,
+     * so nested parsing in the same thread gets a new parser.
+     */
+    protected Document parseAndReuse(LagartoParser lagartoParser) {
+        PARSERS.remove();
+        try {
+            return doParse(lagartoParser);
+        } finally {
+            PARSERS.set(lagartoParser);
+        }
     }
 
     /**
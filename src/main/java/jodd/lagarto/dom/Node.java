@@ -177,6 +177,7 @@ public abstract class Node implements Cloneable {
             parentNode.reindexChildren();
         }
         parentNode = null;
+        invalidateIndex();
     }
 
     /**
@@ -316,6 +317,7 @@ public abstract class Node implements Cloneable {
         childNodes = null;
         childElementNodes = null;
         childElementNodesCount = 0;
+        invalidateIndex();
 
         if (removedNodes != null) {
             for (int i = 0, removedNodesSize = removedNodes.size(); i < removedNodesSize; i++) {
@@ -438,6 +440,7 @@ public abstract class Node implements Cloneable {
             return false;
         }
         attributes.remove(index);
+        invalidateIndex();
         return true;
     }
 
@@ -446,6 +449,7 @@ public abstract class Node implements Cloneable {
      */
     public void setAttribute(String name, String value) {
         initAttributes();
+        invalidateIndex();
 
         String rawAttributeName = name;
         if (!ownerDocument.config.isCaseSensitive()) {
@@ -768,6 +772,7 @@ public abstract class Node implements Cloneable {
 
         childElementNodesCount = siblingElementIndex;
         childElementNodes = null;    // reset child element nodes
+        invalidateIndex();
     }
 
     /**
@@ -792,6 +797,16 @@ public abstract class Node implements Cloneable {
 
         childElementNodesCount = siblingElementIndex;
         childElementNodes = null;    // reset child element nodes
+        invalidateIndex();
+    }
+
+    /**
+     * Drops the element index of the owner document, as the tree is changed.
+     */
+    protected void invalidateIndex() {
+        if (ownerDocument != null) {
+            ownerDocument.invalidateIndex();
+        }
     }
 
     /**
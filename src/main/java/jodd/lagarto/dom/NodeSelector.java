@@ -28,11 +28,19 @@ package jodd.lagarto.dom;
 import jodd.csselly.CSSelly;
 import jodd.csselly.Combinator;
 import jodd.csselly.CssSelector;
+import jodd.csselly.Selector;
+import jodd.csselly.selector.AttributeSelector;
+import jodd.csselly.selector.Match;
+import jodd.util.StringPool;
 import jodd.util.collection.JoddArrayList;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Node selector selects DOM nodes using {@link CSSelly CSS3 selectors}.
@@ -49,23 +57,26 @@ public class NodeSelector {
     // ---------------------------------------------------------------- selector
 
     /**
-     * Selects nodes using CSS3 selector query.
+     * Selects nodes using CSS3 selector query. Query is compiled once and cached.
      */
     public List<Node> select(String query) {
-        Collection<List<CssSelector>> selectorsCollection = CSSelly.parse(query);
+        Collection<List<CssSelector>> selectorsCollection = CSSelly.compile(query);
         return select(selectorsCollection);
     }
 
     /**
-     * Selected nodes using pre-parsed CSS selectors. Take in consideration
-     * collection type for results grouping order.
+     * Selected nodes using pre-parsed CSS selectors. Results of a selector
+     * group are merged without duplicates, in the document order.
      */
     public List<Node> select(Collection<List<CssSelector>> selectorsCollection) {
-        List<Node> results = new ArrayList<>();
+        List<Node> results = new SelectedNodes();
         for (List<CssSelector> selectors : selectorsCollection) {
             processSelectors(results, selectors);
         }
-        return results;
+        if (selectorsCollection.size() > 1) {
+            sortInDocumentOrder(results);
+        }
+        return new ArrayList<>(results);
     }
 
     /**
@@ -135,9 +146,15 @@ public class NodeSelector {
         for (CssSelector cssSelector : selectors) {
 
             // create new set of results for current css selector
-            List<Node> selectedNodes = new ArrayList<>();
-            for (Node node : nodes) {
-                walk(node, cssSelector, selectedNodes);
+            List<Node> selectedNodes = new SelectedNodes();
+            if (!selectIndexed(nodes, cssSelector, selectedNodes)) {
+                for (Node node : nodes) {
+                    walk(node, cssSelector, selectedNodes);
+                }
+                if (nodes.size() > 1) {
+                    // results of several nodes may interleave, such as children of nested nodes
+                    sortInDocumentOrder(selectedNodes);
+                }
             }
 
             // post-processing: filter out the results
@@ -224,6 +241,84 @@ public class NodeSelector {
         }
     }
 
+    /**
+     * Finds descendants of given nodes that matches single selector using the
+     * {@link Document#getElementIndex() element index}, starting from the most
+     * selective element list of the id, class or element name. Tag names are
+     * used only for the whole document, as the subtree of a node may be smaller
+     * than all elements with the same name. Returns <code>false</code> when
+     * the index can not be used and nodes have to be walked.
+     */
+    protected boolean selectIndexed(List<Node> nodes, CssSelector cssSelector, List<Node> result) {
+        CssSelector previousCssSelector = cssSelector.getPrevCssSelector();
+        if (nodes.isEmpty() || (previousCssSelector != null && previousCssSelector.getCombinator() != Combinator.DESCENDANT)) {
+            return false;
+        }
+        Document document = documentOf(nodes.get(0));
+        if (document == null) {
+            return false;
+        }
+        for (Node node : nodes) {
+            // detached nodes are not in the index
+            Node root = node;
+            while (root.parentNode != null) {
+                root = root.parentNode;
+            }
+            if (root != document) {
+                return false;
+            }
+        }
+        boolean wholeDocument = nodes.size() == 1 && nodes.get(0) == document;
+
+        List<Element> candidates = null;
+        if (wholeDocument && !cssSelector.getElement().equals(StringPool.STAR)) {
+            candidates = document.getElementsByTagName(cssSelector.getElement());
+        }
+        for (int i = 0, count = cssSelector.selectorsCount(); i < count; i++) {
+            Selector selector = cssSelector.getSelector(i);
+            if (selector.getType() != Selector.Type.ATTRIBUTE) {
+                continue;
+            }
+            AttributeSelector attributeSelector = (AttributeSelector) selector;
+            String value = attributeSelector.getValue();
+            if (value == null) {
+                continue;
+            }
+            List<Element> elements = null;
+            if (attributeSelector.getMatch() == Match.EQUALS && attributeSelector.getName().equals("id")) {
+                elements = document.getElementsById(value);
+            } else if (attributeSelector.getMatch() == Match.INCLUDES && attributeSelector.getName().equals("class")) {
+                elements = document.getElementsByClassName(value);
+            }
+            if (elements != null && (candidates == null || elements.size() < candidates.size())) {
+                candidates = elements;
+            }
+        }
+        if (candidates == null) {
+            return false;
+        }
+
+        // candidates are in the document order, keep descendants of given nodes
+        Set<Node> contextNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        contextNodes.addAll(nodes);
+        for (Element candidate : candidates) {
+            for (Node parent = candidate.parentNode; parent != null; parent = parent.parentNode) {
+                if (contextNodes.contains(parent)) {
+                    selectAndAdd(candidate, cssSelector, result);
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Document documentOf(Node node) {
+        if (node.getNodeType() == Node.NodeType.DOCUMENT) {
+            return (Document) node;
+        }
+        return node.getOwnerDocument();
+    }
+
     /**
      * Selects single node for single selector and appends it to the results.
      */
@@ -250,4 +345,76 @@ public class NodeSelector {
         return cssSelector.accept(currentResults, node, index);
     }
 
+    // ---------------------------------------------------------------- order
+
+    /**
+     * Compares nodes by their position in the document, ancestors are before their descendants.
+     */
+    public static final Comparator<Node> DOCUMENT_ORDER = NodeSelector::compareDocumentOrder;
+
+    /**
+     * Sorts nodes in the document order. Nodes that are already in order are not touched.
+     */
+    public static void sortInDocumentOrder(List<Node> nodes) {
+        for (int i = 1, size = nodes.size(); i < size; i++) {
+            if (compareDocumentOrder(nodes.get(i - 1), nodes.get(i)) > 0) {
+                nodes.sort(DOCUMENT_ORDER);
+                return;
+            }
+        }
+    }
+
+    private static int compareDocumentOrder(Node node1, Node node2) {
+        if (node1 == node2) {
+            return 0;
+        }
+        int depth1 = depth(node1);
+        int depth2 = depth(node2);
+        Node ancestor1 = node1;
+        Node ancestor2 = node2;
+        for (int i = depth1; i > depth2; i--) {
+            ancestor1 = ancestor1.parentNode;
+        }
+        for (int i = depth2; i > depth1; i--) {
+            ancestor2 = ancestor2.parentNode;
+        }
+        if (ancestor1 == ancestor2) {
+            // one node is the ancestor of the other
+            return depth1 < depth2 ? -1 : 1;
+        }
+        while (ancestor1.parentNode != ancestor2.parentNode) {
+            ancestor1 = ancestor1.parentNode;
+            ancestor2 = ancestor2.parentNode;
+        }
+        return Integer.compare(ancestor1.siblingIndex, ancestor2.siblingIndex);
+    }
+
+    private static int depth(Node node) {
+        int depth = 0;
+        while (node.parentNode != null) {
+            node = node.parentNode;
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * List of selected nodes with constant time lookup of duplicates.
+     * Nodes are compared by identity.
+     */
+    private static class SelectedNodes extends ArrayList<Node> {
+        private final Set<Node> set = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        @Override
+        public boolean add(Node node) {
+            set.add(node);
+            return super.add(node);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return set.contains(o);
+        }
+    }
+
 }
\ No newline at end of file
@@ -604,7 +604,7 @@ public class TagNode extends TagToken implements HtmlNode {
      * @throws XPatherException
      */
     public Object[] evaluateXPath(String xPathExpression) throws XPatherException {
-        return new XPather(xPathExpression).evaluateAgainstNode(this);
+        return XPather.compile(xPathExpression).evaluateAgainstNode(this);
     }
 
     /**
@@ -66,8 +66,17 @@ public class XPather {
     private static final int CM = '-';
     private static final int CS = ' ';
 
+    // max size of the shared compiled expression cache
+    private static final int CACHE_SIZE = 512;
+    private static final Map<String, XPather> CACHE = Collections.synchronizedMap(new LinkedHashMap<String, XPather>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, XPather> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
     // array of basic tokens of which XPath expression is made
-    private String tokenArray[];
+    private final String tokenArray[];
 
     /**
      * Constructor - creates XPather instance with specified XPath expression.
@@ -88,6 +97,21 @@ public class XPather {
         }
     }
 
+    /**
+     * Returns the compiled XPather of the expression from a shared, bounded cache.
+     * XPather keeps only the tokens of the expression, so an instance can be evaluated by many threads.
+     *
+     * @param expression
+     */
+    public static XPather compile(String expression) {
+        XPather xpather = CACHE.get(expression);
+        if (xpather == null) {
+            xpather = new XPather(expression);
+            CACHE.put(expression, xpather);
+        }
+        return xpather;
+    }
+
     /**
      * Main public method for this class - a way to execute XPath expression against
      * specified TagNode instance.
@@ -0,0 +1,74 @@
+package im.nll.data.extractor;
+
+import im.nll.data.extractor.entity.Activity;
+import im.nll.data.extractor.exception.ReflectException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/17 下午10:31
+ */
+public class BeanBinderTest {
+
+    public static class Item {
+        private int count;
+        private Integer total;
+        private double price;
+        private boolean hot;
+        private Object raw;
+        private final String code = "none";
+    }
+
+    public static class SubItem extends Item {
+        private String name;
+    }
+
+    @Test
+    public void testSet() throws Exception {
+        BeanBinder binder = BeanBinder.of(SubItem.class);
+        Assert.assertSame(binder, BeanBinder.of(SubItem.class));
+        SubItem item = (SubItem) binder.create();
+        Map<String, Object> embeddables = new HashMap<>();
+        binder.property("name").set(item, "apple", embeddables);
+        binder.property("count").set(item, "3", embeddables);
+        binder.property("total").set(item, null, embeddables);
+        binder.property("price").set(item, "1.5", embeddables);
+        binder.property("hot").set(item, "true", embeddables);
+        binder.property("raw").set(item, "x", embeddables);
+        // final field is set by reflection
+        binder.property("code").set(item, "a1", embeddables);
+        Assert.assertEquals("apple", item.name);
+        Assert.assertEquals(3, ((Item) item).count);
+        Assert.assertNull(((Item) item).total);
+        Assert.assertEquals(1.5, ((Item) item).price, 0);
+        Assert.assertTrue(((Item) item).hot);
+        Assert.assertEquals("x", ((Item) item).raw);
+    }
+
+    @Test
+    public void testEmbeddable() throws Exception {
+        BeanBinder binder = BeanBinder.of(Activity.class);
+        Activity activity = (Activity) binder.create();
+        Map<String, Object> embeddables = new HashMap<>();
+        binder.property("config.encoding").set(activity, "UTF-8", embeddables);
+        binder.property("config.pollInterval").set(activity, "5", embeddables);
+        Assert.assertEquals("UTF-8", activity.getConfig().getEncoding());
+        Assert.assertEquals("5", activity.getConfig().getPollInterval());
+    }
+
+    @Test(expected = ReflectException.class)
+    public void testNoSuchField() throws Exception {
+        BeanBinder.of(Item.class).property("name");
+    }
+
+    @Test(expected = ReflectException.class)
+    public void testConvertError() throws Exception {
+        BeanBinder binder = BeanBinder.of(Item.class);
+        binder.property("count").set(binder.create(), "abc", new HashMap<>());
+    }
+}
@@ -3,15 +3,31 @@ package im.nll.data.extractor;
 import com.google.common.base.Charsets;
 import com.google.common.collect.Maps;
 import com.google.common.io.Resources;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.json.JsonSmartJsonProvider;
 import im.nll.data.extractor.entity.*;
+import im.nll.data.extractor.impl.JSONPathExtractor;
+import im.nll.data.extractor.impl.LazyJsonProvider;
 import im.nll.data.extractor.rule.ExtractRule;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static im.nll.data.extractor.Extractors.*;
 
@@ -64,6 +80,19 @@ public class ExtractorsTest {
         Assert.assertEquals("from 2000", year);
     }
 
+    @Test
+    public void testShareDocument() throws Exception {
+        ExtractContext context = ExtractContext.of(baseHtml);
+        Assert.assertEquals("fivesmallq", selector("a.title").extract(context));
+        Assert.assertEquals("Talk is cheap. Show me the code.", selector("div.description").extract(context));
+        Assert.assertEquals("/fivesmallq", xpath("//div/a[1]/@href").extract(context));
+        // parse once per parser kind
+        AtomicInteger parsed = new AtomicInteger();
+        Object document = context.getDocument("count", c -> parsed.incrementAndGet());
+        Assert.assertSame(document, context.getDocument("count", c -> parsed.incrementAndGet()));
+        Assert.assertEquals(1, parsed.get());
+    }
+
     @Test
     public void testAsStringNoName() throws Exception {
         String result = Extractors.on(baseHtml)
@@ -342,6 +371,71 @@ public class ExtractorsTest {
         Assert.assertEquals(second.getUrl(), "https://www.ruby-lang.org");
     }
 
+    @Test
+    public void testSplitNodes() throws Exception {
+        String expected = "[{type=static, name=Java}, {type=dynamic, name=Ruby}, {type=dynamic, name=Python}]";
+        // htmlcleaner
+        List<Map<String, String>> languages = Extractors.on(listHtml).split("htmlcleaner://tr[@class='item']")
+                .extract("type", "htmlcleaner://td[@class='type']/text()")
+                .extract("name", "htmlcleaner://tr/td[2]/text()")
+                .asMapList();
+        Assert.assertEquals(expected, languages.toString());
+        // selector record used by regex
+        languages = Extractors.on(listHtml).split(selector("tr.item.html"))
+                .extract("type", regex("<td class=\"type\">(.*?)</td>", 1))
+                .extract("name", selector("td.name"))
+                .asMapList();
+        Assert.assertEquals(expected, languages.toString());
+        // entity in the record
+        languages = Extractors.on("<table><tr><td>A &amp; B</td></tr><tr><td>C</td></tr></table>").split(xpath("//tr"))
+                .extract("name", xpath("//td/text()"))
+                .asMapList();
+        Assert.assertEquals("[{name=A & B}, {name=C}]", languages.toString());
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        StringBuilder html = new StringBuilder("<table>");
+        for (int i = 0; i < 500; i++) {
+            html.append("<tr class=\"item\"><td class=\"type\">t").append(i).append("</td><td class=\"name\">n").append(i).append("</td></tr>");
+        }
+        html.append("</table>");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Map<String, String>> maps = Extractors.on(html.toString()).parallel(executor).split(selectorh("tr.item.html"))
+                    .extract("type", selectorh("td.type"))
+                    .extract("name", selectorh("td.name"))
+                    .asMapList();
+            List<Language> languages = Extractors.on(html.toString()).parallel().split(xpath("//tr[@class='item']"))
+                    .extract("type", xpath("//td[1]/text()"))
+                    .extract("name", xpath("//td[2]/text()"))
+                    .asBeanList(Language.class);
+            List<String> names = Extractors.on(html.toString()).parallel(executor).split(regex("<tr.*?</tr>"))
+                    .asBeanList((EntityExtractor<String>) data -> regex("<td class=\"name\">(.*?)</td>", 1).extract(data));
+            Assert.assertEquals(500, maps.size());
+            Assert.assertEquals(500, languages.size());
+            Assert.assertEquals(500, names.size());
+            for (int i = 0; i < 500; i++) {
+                Assert.assertEquals("t" + i, maps.get(i).get("type"));
+                Assert.assertEquals("n" + i, maps.get(i).get("name"));
+                Assert.assertEquals("t" + i, languages.get(i).getType());
+                Assert.assertEquals("n" + i, languages.get(i).getName());
+                Assert.assertEquals("n" + i, names.get(i));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testParallelException() throws Exception {
+        Extractors.on(listHtml).parallel().split(xpath("//tr[@class='item']"))
+                .extract("type", xpath("//td[1]/text()")).filter(value -> {
+                    throw new IllegalStateException(value);
+                })
+                .asMapList();
+    }
+
     @Test
     public void testToMapByXPathWithNameSpace() throws Exception {
         Map<String, String> dataMap = Extractors.on(base4Html)
@@ -423,6 +517,40 @@ public class ExtractorsTest {
         Assert.assertEquals(second.getPrice(), new Double(12.99));
     }
 
+    @Test
+    public void testToBeanListByLazyJson() throws Exception {
+        List<Book> books = Extractors.on(jsonString).jsonProvider(new LazyJsonProvider()).split(json("$..book.*"))
+                .extract("category", json("$.category"))
+                .extract("author", "json:$.author")
+                .extract("price", json("$.price"))
+                .asBeanList(Book.class);
+        Assert.assertEquals(books.size(), 4);
+        Assert.assertEquals(books.get(1).getAuthor(), "Evelyn Waugh");
+        Assert.assertEquals(books.get(1).getPrice(), new Double(12.99));
+    }
+
+    @Test
+    public void testSharedJsonExtractor() throws Exception {
+        AtomicInteger parsed = new AtomicInteger();
+        JsonProvider provider = new JsonSmartJsonProvider() {
+            @Override
+            public Object parse(String json) {
+                parsed.incrementAndGet();
+                return super.parse(json);
+            }
+        };
+        // the provider of one extractors doesn't change the extractor shared with the others
+        JSONPathExtractor author = json("$.store.book[1].author");
+        Assert.assertEquals("Evelyn Waugh", Extractors.on(jsonString).jsonProvider(provider).extract(author).asString());
+        Assert.assertEquals(1, parsed.get());
+        Assert.assertEquals("Evelyn Waugh", Extractors.on(jsonString).extract(author).asString());
+        Assert.assertEquals("{author=Evelyn Waugh}", Extractors.on(jsonString).extract("author", author).asMap().toString());
+        Assert.assertEquals(1, parsed.get());
+        Assert.assertEquals("[{author=Evelyn Waugh}]", Extractors.on(jsonString).jsonProvider(provider).split(json("$..book[1]"))
+                .extract("author", json("$.author")).asMapList().toString());
+        Assert.assertEquals(2, parsed.get());
+    }
+
     @Test
     public void testToBeanListByJsonString() throws Exception {
         List<Book> books = Extractors.on(jsonString).split("json:$..book.*")
@@ -486,8 +614,8 @@ public class ExtractorsTest {
 
     @Test(expected = IllegalArgumentException.class)
     public void testSplit() {
-        //regex is not implements ListableExtractor
-        List<Language> languages = Extractors.on(listHtml).split(regex("tr.item.html"))
+        //lambda is not implements ListableExtractor
+        List<Language> languages = Extractors.on(listHtml).split(value -> value)
                 .extract("type", selector("td.type"))
                 .extract("name", selector("td.name"))
                 .extract("url", selector("td.url"))
@@ -500,6 +628,136 @@ public class ExtractorsTest {
         Assert.assertEquals(second.getUrl(), "https://www.ruby-lang.org");
     }
 
+    @Test
+    public void testSplitByRegex() {
+        List<String> urls = Extractors.on(listHtml).split(regex("<td class=\"url\">(.*?)</td>", 1))
+                .asBeanList(String.class);
+        Assert.assertEquals("[https://www.java.com, https://www.ruby-lang.org, https://www.python.org]", urls.toString());
+    }
+
+    @Test
+    public void testStream() {
+        String expected = "[{type=static, name=Java}, {type=dynamic, name=Ruby}, {type=dynamic, name=Python}]";
+        List<Map<String, String>> languages = Extractors.on(listHtml).split(xpath("//tr[@class='item']"))
+                .extract("type", xpath("//td[1]/text()"))
+                .extract("name", xpath("//td[2]/text()"))
+                .stream().collect(Collectors.toList());
+        Assert.assertEquals(expected, languages.toString());
+        languages = Extractors.on(listHtml).split(stringRange("<tr class=\"item\">,</tr>"))
+                .extract("type", regex("<td class=\"type\">(.*?)</td>", 1))
+                .extract("name", regex("<td class=\"name\">(.*?)</td>", 1))
+                .stream().collect(Collectors.toList());
+        Assert.assertEquals(expected, languages.toString());
+        // records are found only when they are asked for
+        AtomicInteger count = new AtomicInteger();
+        Iterator<Language> iterator = Extractors.on(listHtml).split(regex("<tr class=\"item\">.*?</tr>"))
+                .extract("name", regex("<td class=\"name\">(.*?)</td>", 1)).filter(value -> {
+                    count.incrementAndGet();
+                    return value;
+                })
+                .iterator(Language.class);
+        Assert.assertEquals(0, count.get());
+        Assert.assertEquals("Java", iterator.next().getName());
+        Assert.assertEquals(1, count.get());
+        Assert.assertEquals("Ruby", iterator.next().getName());
+        Assert.assertEquals("Python", iterator.next().getName());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testOnBytes() throws Exception {
+        String html = listHtml.replace("Java", "爪哇");
+        Charset gbk = Charset.forName("GBK");
+        byte[] bytes = html.getBytes(gbk);
+        String expected = "[{type=static, name=爪哇, url=https://www.java.com}, {type=dynamic, name=Ruby, url=https://www.ruby-lang.org}, {type=dynamic, name=Python, url=https://www.python.org}]";
+        Assert.assertEquals(expected, Extractors.on(bytes, gbk).split(xpath("//tr[@class='item']"))
+                .extract("type", xpath("//td[1]/text()"))
+                .extract("name", selector("td.name"))
+                .extract("url", regex("<td class=\"url\">(.*?)</td>", 1))
+                .asMapList().toString());
+        Assert.assertEquals(expected, Extractors.on(new ByteArrayInputStream(bytes), gbk).split(selectorh("tr.item.html"))
+                .extract("type", selectorh("td.type"))
+                .extract("name", regex("<td class=\"name\">(.*?)</td>", 1))
+                .extract("url", stringRange("<td class=\"url\">,</td>"))
+                .asMapList().toString());
+        Path path = Files.createTempFile("list", ".html");
+        try {
+            Files.write(path, bytes);
+            Assert.assertEquals(expected, Extractors.on(path, gbk).split("htmlcleaner://tr[@class='item']")
+                    .extract("type", "htmlcleaner://td[@class='type']/text()")
+                    .extract("name", "htmlcleaner://tr/td[2]/text()")
+                    .extract("url", selector("td.url"))
+                    .asMapList().toString());
+            ExtractionPlan plan = Extractors.on("").split(xpath("//tr[@class='item']"))
+                    .extract("type", xpath("//td[1]/text()"))
+                    .extract("name", xpath("//td[2]/text()"))
+                    .extract("url", xpath("//td[3]/text()"))
+                    .compile();
+            Assert.assertEquals(expected, plan.asMapList(ExtractContext.of(path, gbk)).toString());
+        } finally {
+            Files.delete(path);
+        }
+        Assert.assertEquals(Extractors.on(jsonString).extract(json("$..author")).asString(),
+                Extractors.on(jsonString.getBytes(gbk), gbk).extract(json("$..author")).asString());
+    }
+
+    @Test
+    public void testStreamJsonFile() throws Exception {
+        Path path = Files.createTempFile("items", ".json");
+        try {
+            Files.write(path, "{\"id\": 1, \"name\": \"a\"}\n{\"id\": 2, \"name\": \"b\"}\n".getBytes(Charsets.UTF_8));
+            List<Map<String, String>> items = Extractors.on(path).split(jsonStream("$"))
+                    .extract("id", json("$.id"))
+                    .extract("name", json("$.name"))
+                    .stream().collect(Collectors.toList());
+            Assert.assertEquals("[{id=1, name=a}, {id=2, name=b}]", items.toString());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testCloseStream() throws Exception {
+        Path path = Files.createTempFile("items", ".json");
+        try {
+            Files.write(path, "{\"id\": 1}\n{\"id\": 2}\n{\"id\": 3}\n".getBytes(Charsets.UTF_8));
+            ExtractionPlan plan = Extractors.on((String) null).split(jsonStream("$")).extract("id", json("$.id")).compile();
+            Iterator<Map<String, String>> iterator = plan.iterator(ExtractContext.of(path, Charsets.UTF_8));
+            Assert.assertEquals("{id=1}", iterator.next().toString());
+            ((Closeable) iterator).close();
+            Assert.assertFalse(iterator.hasNext());
+            try (Stream<Map<String, String>> stream = plan.stream(ExtractContext.of(path, Charsets.UTF_8))) {
+                Assert.assertEquals("{id=1}", stream.findFirst().get().toString());
+            }
+        } finally {
+            Files.delete(path);
+        }
+        // the stream closes a closeable iterator
+        AtomicInteger closed = new AtomicInteger();
+        class Records implements Iterator<String>, Closeable {
+            private final Iterator<String> records = Arrays.asList("a", "b").iterator();
+
+            @Override
+            public boolean hasNext() {
+                return records.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return records.next();
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        }
+        try (Stream<String> stream = ExtractionPlan.toStream(new Records())) {
+            Assert.assertEquals("[a]", stream.limit(1).collect(Collectors.toList()).toString());
+        }
+        Assert.assertEquals(1, closed.get());
+    }
+
     @Test
     public void testEmbeddable() {
         List<Activity> activities = Extractors.on(base5Xml)
@@ -2,11 +2,16 @@ package im.nll.data.extractor.impl;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
+import org.htmlcleaner.XPather;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
@@ -64,4 +69,23 @@ public class HtmlCleanerExtractorTest {
         second = s.get(1);
         Assert.assertEquals("29671 Followers", second);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConcurrentExtract() throws Exception {
+        Assert.assertSame(XPather.compile("//div/a"), XPather.compile("//div/a"));
+        xPathExtractor = new HtmlCleanerExtractor("//div/a");
+        List<String> expected = xPathExtractor.extractList(baseHtml);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executor.submit(() -> xPathExtractor.extractList(baseHtml)));
+            }
+            for (Future<List<String>> future : futures) {
+                Assert.assertEquals(expected, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package im.nll.data.extractor.impl;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import im.nll.data.extractor.ExtractContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/18 上午3:24
+ */
+public class HtmlStreamExtractorTest {
+    private String html;
+
+    @Before
+    public void before() {
+        try {
+            html = Resources.toString(Resources.getResource("list.html"), Charsets.UTF_8);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void testExtract() throws Exception {
+        Assert.assertEquals("languages", new HtmlStreamExtractor("th.title").extract(html));
+        Assert.assertEquals("static Java https://www.java.com", new HtmlStreamExtractor("tr.item.text").extract(html));
+        Assert.assertEquals("name", new HtmlStreamExtractor("tr.item td.name.attr(class)").extract(html));
+        Assert.assertEquals("", new HtmlStreamExtractor("tr.none.text").extract(html));
+    }
+
+    @Test
+    public void testExtractList() throws Exception {
+        // same values as the dom
+        for (String query : Arrays.asList("tr.item.text", "tr.item td.attr(class)", "table > tr > td", "tr td.name, th")) {
+            Assert.assertEquals(query, new JerryExtractor(query).extractList(html), new HtmlStreamExtractor(query).extractList(html));
+        }
+    }
+
+    @Test
+    public void testImpliedEndTags() throws Exception {
+        String broken = "<ul><li>a<li>b <br> c<li><img src='x.png' alt='x'></ul><p>one<p>two</p>";
+        Assert.assertEquals("[a, b c, ]", new HtmlStreamExtractor("ul > li").extractList(broken).toString());
+        Assert.assertEquals("[x.png]", new HtmlStreamExtractor("li img.attr(src)").extractList(broken).toString());
+        Assert.assertEquals("[one, two]", new HtmlStreamExtractor("p").extractList(broken).toString());
+        // nested values keep the document order
+        String nested = "<div class='a'>1<div class='a'>2</div>3</div>";
+        Assert.assertEquals("[123, 2]", new HtmlStreamExtractor("div.a").extractList(nested).toString());
+        Assert.assertEquals("[2]", new HtmlStreamExtractor(".a .a").extractList(nested).toString());
+    }
+
+    @Test
+    public void testExtractFields() throws Exception {
+        String page = "<html><head><title>Title &amp; more</title><meta name='description' content='about'></head>" +
+                "<body><h1>Header</h1><div>unclosed";
+        List<HtmlStreamExtractor> extractors = Arrays.asList(new HtmlStreamExtractor("title"),
+                new HtmlStreamExtractor("meta[name=description].attr(content)"), new HtmlStreamExtractor("h2"));
+        Assert.assertEquals("[Title & more, about, ]", HtmlStreamExtractor.extract(ExtractContext.of(page), extractors).toString());
+    }
+
+    @Test
+    public void testReuseParser() throws Exception {
+        // a stopped parsing and a longer content don't leak into the next content of the thread
+        Assert.assertEquals("languages", new HtmlStreamExtractor("th.title").extract(html));
+        Assert.assertEquals("[a]", new HtmlStreamExtractor("p").extractList("<p>a</p><!--").toString());
+        Assert.assertEquals("[b]", new HtmlStreamExtractor("p").extractList("<p>b").toString());
+        Assert.assertEquals("languages", new JerryExtractor("th.title").extract(html));
+        Assert.assertEquals("[c]", new JerryExtractor("p").extractList("<p>c").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedSelector() throws Exception {
+        new HtmlStreamExtractor("tr:eq(1)");
+    }
+}
@@ -2,12 +2,18 @@ package im.nll.data.extractor.impl;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
+import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.json.JsonSmartJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JsonSmartMappingProvider;
+import im.nll.data.extractor.ExtractContext;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
@@ -46,4 +52,41 @@ public class JSONPathExtractorTest {
         Assert.assertEquals(listBeanString.size(), 2);
         Assert.assertEquals("{\"category\":\"reference\",\"title\":\"Sayings of the Century\",\"author\":\"Nigel Rees\",\"price\":8.95}", listBeanString.get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSplit() throws Exception {
+        JSONPathExtractor split = new JSONPathExtractor("$..book[0,1]");
+        List<ExtractContext> records = split.split(ExtractContext.of(json));
+        Assert.assertEquals(2, records.size());
+        Assert.assertEquals("Sayings of the Century", new JSONPathExtractor("$.title").extract(records.get(0)));
+        Assert.assertEquals("Evelyn Waugh", new JSONPathExtractor("$..author").extract(records.get(1)));
+        Assert.assertEquals(split.extractList(json).get(0), records.get(0).getData());
+        records = new JSONPathExtractor("$.store.book[*].author").split(ExtractContext.of(json));
+        Assert.assertEquals("Nigel Rees", records.get(0).getData());
+    }
+
+    @Test(expected = InvalidPathException.class)
+    public void testInvalidPath() throws Exception {
+        new JSONPathExtractor("$..");
+    }
+
+    @Test
+    public void testShareDocument() throws Exception {
+        AtomicInteger parsed = new AtomicInteger();
+        JsonProvider provider = new JsonSmartJsonProvider() {
+            @Override
+            public Object parse(String json) {
+                parsed.incrementAndGet();
+                return super.parse(json);
+            }
+        };
+        ExtractContext context = ExtractContext.of(json);
+        Assert.assertEquals("Nigel Rees", new JSONPathExtractor("$.store.book[0].author").jsonProvider(provider).extract(context));
+        Assert.assertEquals("Evelyn Waugh", new JSONPathExtractor("$.store.book[1].author").jsonProvider(provider).extract(context));
+        Assert.assertEquals(1, parsed.get());
+        // the same provider with another configuration doesn't read the parsed json
+        Assert.assertEquals("Nigel Rees", new JSONPathExtractor("$.store.book[0].author").jsonProvider(provider)
+                .mappingProvider(new JsonSmartMappingProvider()).extract(context));
+        Assert.assertEquals(2, parsed.get());
+    }
+}
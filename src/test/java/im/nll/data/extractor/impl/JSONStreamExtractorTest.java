@@ -0,0 +1,106 @@
+package im.nll.data.extractor.impl;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import im.nll.data.extractor.ExtractContext;
+import im.nll.data.extractor.exception.ExtractException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/18 上午12:40
+ */
+public class JSONStreamExtractorTest {
+    private String json;
+
+    @Before
+    public void before() {
+        try {
+            json = Resources.toString(Resources.getResource("example.json"), Charsets.UTF_8);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void testExtractList() throws Exception {
+        List<String> books = new JSONStreamExtractor("$.store.book[*]").extractList(json);
+        Assert.assertEquals(4, books.size());
+        Assert.assertEquals("Nigel Rees", new JSONPathExtractor("$.author").extract(books.get(0)));
+        Assert.assertEquals("0-395-19395-8", new JSONPathExtractor("$.isbn").extract(books.get(3)));
+        Assert.assertEquals("[red]", new JSONStreamExtractor("$['store'].bicycle.color").extractList(json).toString());
+        Assert.assertEquals("10", new JSONStreamExtractor("$.expensive").extract(json));
+        Assert.assertEquals("", new JSONStreamExtractor("$.none[*]").extract(json));
+        Assert.assertEquals("[Nigel Rees, Evelyn Waugh, Herman Melville, J. R. R. Tolkien]",
+                new JSONStreamExtractor("$.store.book.*.author").extractList(json).toString());
+    }
+
+    @Test
+    public void testNewlineDelimited() throws Exception {
+        String ndjson = "{\"id\": 1, \"tags\": [\"a]\", \"b\\\"}\"]}\n{\"id\": 2, \"tags\": []}\n\n{\"id\": 3, \"tags\": [\"c\"]}\n";
+        Assert.assertEquals("[{\"id\": 1, \"tags\": [\"a]\", \"b\\\"}\"]}, {\"id\": 2, \"tags\": []}, {\"id\": 3, \"tags\": [\"c\"]}]",
+                new JSONStreamExtractor("$").extractList(ndjson).toString());
+        Assert.assertEquals("[1, 2, 3]", new JSONStreamExtractor("$.id").extractList(ndjson).toString());
+        Assert.assertEquals("[a], b\"}, c]", new JSONStreamExtractor("$.tags[*]").extractList(ndjson).toString());
+        Assert.assertEquals("[1, true, null, x]", new JSONStreamExtractor("$[*]").extractList("[1, true, null, \"x\"]").toString());
+    }
+
+    @Test
+    public void testSplitIterator() throws Exception {
+        Iterator<ExtractContext> records = new JSONStreamExtractor("$[*]").splitIterator(ExtractContext.of("[{\"a\":1}, {\"a\":2}, }"));
+        Assert.assertEquals("{\"a\":1}", records.next().getData());
+        Assert.assertEquals("{\"a\":2}", records.next().getData());
+        try {
+            records.hasNext();
+            Assert.fail("invalid json");
+        } catch (ExtractException e) {
+            // records before the error are read
+        }
+    }
+
+    @Test
+    public void testInvalidKey() throws Exception {
+        for (String json : new String[]{"{1:2}", "{a:1}", "{\"a\":1, b:2}"}) {
+            try {
+                new JSONStreamExtractor("$.b").extractList(json);
+                Assert.fail(json);
+            } catch (ExtractException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("invalid json"));
+            }
+        }
+    }
+
+    @Test
+    public void testCloseIterator() throws Exception {
+        Iterator<ExtractContext> records = new JSONStreamExtractor("$[*]").splitIterator(ExtractContext.of("[1, 2, 3]"));
+        Assert.assertEquals("1", records.next().getData());
+        Assert.assertTrue(records instanceof Closeable);
+        ((Closeable) records).close();
+        Assert.assertFalse(records.hasNext());
+    }
+
+    @Test
+    public void testLargeInput() throws Exception {
+        StringBuilder items = new StringBuilder("{\"items\": [");
+        for (int i = 0; i < 2000; i++) {
+            items.append(i == 0 ? "" : ",\n").append("{\"name\": \"item \\\"").append(i).append("\\\"\", \"skip\": {\"x\": [1, 2]}}");
+        }
+        items.append("]}");
+        List<String> names = new JSONStreamExtractor("$.items[*].name").extractList(items.toString());
+        Assert.assertEquals(2000, names.size());
+        Assert.assertEquals("item \"1999\"", names.get(1999));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedPath() throws Exception {
+        new JSONStreamExtractor("$..book");
+    }
+}
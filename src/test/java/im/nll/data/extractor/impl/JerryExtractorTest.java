@@ -2,6 +2,8 @@ package im.nll.data.extractor.impl;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
+import jodd.csselly.CSSelly;
+import jodd.jerry.Jerry;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -102,4 +104,58 @@ public class JerryExtractorTest {
         Assert.assertEquals("name", datas.get(1));
         Assert.assertEquals("url", datas.get(2));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testExtractEntity() throws Exception {
+        String entityHtml = "<div><p title=\"a &amp; b\">x &lt; y&nbsp;&copy;\n  z</p></div>";
+        selectorExtractor = new JerryExtractor("p.text");
+        Assert.assertEquals("x < y \u00a9 z", selectorExtractor.extract(entityHtml));
+        selectorExtractor = new JerryExtractor("p.attr(title)");
+        Assert.assertEquals("a & b", selectorExtractor.extract(entityHtml));
+        selectorExtractor = new JerryExtractor("div.html");
+        Assert.assertTrue(selectorExtractor.extract(entityHtml).startsWith("<p title=\"a &amp; b\">x &lt; y"));
+        selectorExtractor = new JerryExtractor("span.text");
+        Assert.assertEquals("", selectorExtractor.extract(entityHtml));
+    }
+
+    @Test
+    public void testCompiledSelector() throws Exception {
+        Assert.assertSame(CSSelly.compile("tr.item td"), CSSelly.compile("tr.item td"));
+        selectorExtractor = new JerryExtractor("tr.item td.attr(class)");
+        Assert.assertEquals(9, selectorExtractor.extractList(html).size());
+        Assert.assertEquals(9, selectorExtractor.extractList(html).size());
+    }
+
+    @Test
+    public void testDocumentOrder() throws Exception {
+        String nested = "<div id='a'><p>1</p><div id='b'><p>2</p></div><p>3</p></div><span>4</span>";
+        // groups are merged in the document order
+        selectorExtractor = new JerryExtractor("span, p, #b > p");
+        Assert.assertEquals("[1, 2, 3, 4]", selectorExtractor.extractList(nested).toString());
+        // nested contexts find the same nodes only once
+        Jerry found = Jerry.jerry(nested).$("div").$("p");
+        Assert.assertEquals(3, found.length());
+        Assert.assertEquals("123", found.text());
+        // children of nested contexts
+        selectorExtractor = new JerryExtractor("div > p");
+        Assert.assertEquals("[1, 2, 3]", selectorExtractor.extractList(nested).toString());
+        selectorExtractor = new JerryExtractor("div > p:eq(1)");
+        Assert.assertEquals("2", selectorExtractor.extract(nested));
+    }
+
+    @Test
+    public void testIndexedSelector() throws Exception {
+        Jerry doc = Jerry.jerry("<div id='a' class='x  y'><p class='y'>1</p><p id='b'>2</p></div><p class='y x'>3</p>");
+        Assert.assertEquals(3, doc.$(".y").length());
+        Assert.assertEquals("3", doc.$("p.x").text());
+        Assert.assertEquals("2", doc.$("#a #b").text());
+        Assert.assertEquals("1", doc.$("#a .y").text());
+        Assert.assertEquals(0, doc.$("p#a").length());
+        // index follows changes of the tree
+        doc.$("#b").addClass("y");
+        Assert.assertEquals("123", doc.$("p.y").text());
+        doc.$("#a").remove();
+        Assert.assertEquals("3", doc.$("p").text());
+        Assert.assertEquals(0, doc.$("#b").length());
+    }
+}
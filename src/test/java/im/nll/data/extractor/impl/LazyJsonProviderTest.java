@@ -0,0 +1,103 @@
+package im.nll.data.extractor.impl;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.jayway.jsonpath.InvalidJsonException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/17 下午11:40
+ */
+public class LazyJsonProviderTest {
+    private String json;
+
+    @Before
+    public void before() {
+        try {
+            json = Resources.toString(Resources.getResource("example.json"), Charsets.UTF_8);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void testSameAsDefault() throws Exception {
+        LazyJsonProvider provider = new LazyJsonProvider();
+        for (String path : new String[]{"$.store.book[0].author", "$..author", "$..price", "$.expensive",
+                "$..book[?(@.price < 10)].title", "$..book[-1:].isbn", "$.none"}) {
+            Assert.assertEquals(path, new JSONPathExtractor(path).extract(json),
+                    new JSONPathExtractor(path).jsonProvider(provider).extract(json));
+            Assert.assertEquals(path, new JSONPathExtractor(path).extractList(json).size(),
+                    new JSONPathExtractor(path).jsonProvider(provider).extractList(json).size());
+        }
+        // objects are the json text
+        Assert.assertEquals("{\n      \"color\": \"red\",\n      \"price\": 19.95\n    }",
+                new JSONPathExtractor("$.store.bicycle").jsonProvider(provider).extract(json));
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        LazyJsonProvider provider = new LazyJsonProvider();
+        Map<String, Object> map = (Map<String, Object>) provider.parse("{\"a\" : \"x\\\"y\\u0041\", \"b\":[1, 2147483648, 1.5e2, true, null, {}], \"c\": {\"d\": [ ]}}");
+        Assert.assertEquals("x\"yA", map.get("a"));
+        List<Object> list = (List<Object>) map.get("b");
+        Assert.assertEquals(6, list.size());
+        Assert.assertEquals(1, list.get(0));
+        Assert.assertEquals(2147483648L, list.get(1));
+        Assert.assertEquals(150.0, list.get(2));
+        Assert.assertEquals(Boolean.TRUE, list.get(3));
+        Assert.assertNull(list.get(4));
+        Assert.assertEquals("{}", provider.toJson(list.get(5)));
+        Assert.assertEquals("{\"d\": [ ]}", provider.toJson(map.get("c")));
+        Assert.assertEquals("[a, b, c]", map.keySet().toString());
+    }
+
+    @Test(expected = InvalidJsonException.class)
+    public void testInvalidJson() throws Exception {
+        new LazyJsonProvider().parse("{\"a\": [1, 2}");
+    }
+
+    @Test
+    public void testMalformedJson() throws Exception {
+        LazyJsonProvider provider = new LazyJsonProvider();
+        for (String json : new String[]{"{]", "[1 2]", "[1,]", "[,1]", "{\"a\" 1}", "{\"a\":1 \"b\":2}", "{\"a\":1,}",
+                "{1:2}", "[{\"a\":[}]]", "[[1]", "{\"a\":{}"}) {
+            try {
+                provider.parse(json);
+                Assert.fail(json);
+            } catch (InvalidJsonException e) {
+                // expected
+            }
+        }
+        Assert.assertEquals("[[], {}, [1, {\"a\":[2]}]]", provider.parse(" [[], {}, [1, {\"a\":[2]}]] ").toString());
+    }
+
+    @Test
+    public void testInvalidEscape() throws Exception {
+        LazyJsonProvider provider = new LazyJsonProvider();
+        for (String json : new String[]{"[\"\\u00\"]", "[\"\\u\"]", "[\"\\u00zz\"]", "[\"\\u+041\"]"}) {
+            List<Object> list = (List<Object>) provider.parse(json);
+            try {
+                list.get(0);
+                Assert.fail(json);
+            } catch (InvalidJsonException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("invalid unicode escape at 2"));
+            }
+        }
+        Assert.assertEquals("A", ((List<Object>) provider.parse("[\"\\u0041\"]")).get(0));
+    }
+
+    @Test(expected = InvalidJsonException.class)
+    public void testInvalidMember() throws Exception {
+        Map<String, Object> map = (Map<String, Object>) new LazyJsonProvider().parse("{\"a\": tru}");
+        map.get("a");
+    }
+}
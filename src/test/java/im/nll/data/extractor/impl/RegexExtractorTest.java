@@ -0,0 +1,80 @@
+package im.nll.data.extractor.impl;
+
+import im.nll.data.extractor.Extractors;
+import im.nll.data.extractor.parser.ExtractorParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/17 下午8:52
+ */
+public class RegexExtractorTest {
+    private String html = "<a href=\"/item?id=12\">A</a> <a href=\"/item?id=34\">b</a>";
+
+    @Test
+    public void testExtract() throws Exception {
+        RegexExtractor regexExtractor = new RegexExtractor("id=\\d+");
+        Assert.assertEquals("id=12", regexExtractor.extract(html));
+        Assert.assertEquals("", regexExtractor.extract("no match"));
+    }
+
+    @Test
+    public void testExtractGroup() throws Exception {
+        RegexExtractor regexExtractor = RegexExtractor.fromShortString("id=(\\d+)#1");
+        Assert.assertEquals("12", regexExtractor.extract(html));
+        regexExtractor = new RegexExtractor("id=(\\d+)", 1);
+        Assert.assertEquals("12", regexExtractor.extract(html));
+        // optional group not matched
+        regexExtractor = RegexExtractor.fromShortString("id=(x)?\\d+#1");
+        Assert.assertEquals("", regexExtractor.extract(html));
+    }
+
+    @Test
+    public void testExtractFlags() throws Exception {
+        // default is case insensitive
+        Assert.assertEquals("A", ExtractorParser.parse("regex:>([a-z])<#1").extract(html));
+        Assert.assertEquals("b", ExtractorParser.parse("regex:>([a-z])<#1#ms").extract(html));
+    }
+
+    @Test
+    public void testExtractEscaped() throws Exception {
+        RegexExtractor regexExtractor = RegexExtractor.fromShortString("\\#1");
+        Assert.assertEquals("#1", regexExtractor.extract("color #1"));
+        Assert.assertEquals("#1", ExtractorParser.parse("regex:\\#1").extract("color #1"));
+        // a literal '#' and digits at the end must be escaped in the short string
+        Assert.assertEquals("item#1", ExtractorParser.parse("regex:item\\#1").extract("an item#1"));
+        Assert.assertEquals("item", ExtractorParser.parse("regex:item#0").extract("an item#1"));
+        try {
+            ExtractorParser.parse("regex:item#1");
+            Assert.fail("no group");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("has no group 1"));
+        }
+    }
+
+    @Test
+    public void testExtractLiteral() throws Exception {
+        // the options are only read from the short string
+        Assert.assertEquals("Issue #42", new RegexExtractor("Issue #42").extract("see Issue #42"));
+        Assert.assertEquals("#4", new RegexExtractor("#4").extract("color #4"));
+        Assert.assertEquals("Issue #42", Extractors.regex("Issue #42").extract("see Issue #42"));
+        Assert.assertEquals("42", Extractors.regex("Issue #(\\d+)", 1).extract("see Issue #42"));
+    }
+
+    @Test
+    public void testExtractList() throws Exception {
+        RegexExtractor regexExtractor = RegexExtractor.fromShortString("id=(\\d+)#1");
+        List<String> ids = regexExtractor.extractList(html);
+        Assert.assertEquals(2, ids.size());
+        Assert.assertEquals("34", ids.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGroupError() throws Exception {
+        ExtractorParser.parse("regex:id=\\d+#1");
+    }
+}
@@ -2,6 +2,8 @@ package im.nll.data.extractor.impl;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
+import im.nll.data.extractor.ExtractContext;
+import org.jsoup.select.Selector;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -51,6 +53,19 @@ public class SelectorExtractorTest {
         Assert.assertEquals("languages", title);
     }
 
+    @Test
+    public void testExtractReuse() throws Exception {
+        selectorExtractor = new SelectorExtractor("a.attr(href)");
+        Assert.assertEquals("baidu.com", selectorExtractor.extract("<a href=baidu.com >href</a>"));
+        Assert.assertEquals("nll.im", selectorExtractor.extract("<a href=nll.im >href</a>"));
+    }
+
+    @Test(expected = Selector.SelectorParseException.class)
+    public void testInvalidQuery() throws Exception {
+        // the query is compiled when the extractor is created
+        new SelectorExtractor("a[href");
+    }
+
     @Test
     public void testExtractAttr() throws Exception {
         selectorExtractor = new SelectorExtractor("a.attr(href)");
@@ -109,4 +124,28 @@ public class SelectorExtractorTest {
         Assert.assertEquals(10, datas.size());
         Assert.assertEquals("「咳咳咳」春季咳不停 这些药物要记牢", datas.get(0));
     }
+
+    @Test
+    public void testSplitSameTag() throws Exception {
+        // the fields select in the record, not the record itself
+        String nested = "<div class='item'><div>A</div>x</div><div class='item'><div>B</div>y</div>";
+        List<ExtractContext> records = new SelectorExtractor("div.item.html").split(ExtractContext.of(nested));
+        Assert.assertEquals(2, records.size());
+        Assert.assertEquals("A", new SelectorExtractor("div").extract(records.get(0)));
+        Assert.assertEquals("A", new SelectorExtractor("div:eq(0)").extract(records.get(0)));
+        Assert.assertEquals("B", new SelectorExtractor("div:eq(0)").extract(records.get(1)));
+        Assert.assertEquals("[B]", new SelectorExtractor("div").extractList(records.get(1)).toString());
+        Assert.assertEquals("", new SelectorExtractor("div.item").extract(records.get(1)));
+    }
+
+    @Test
+    public void testSplitXml() throws Exception {
+        // the records keep the xml output of the parser
+        String xml = "<list><item><p><img src=\"x\"/><b>a</b></p></item><item><p><img src=\"y\"/></p></item></list>";
+        List<ExtractContext> records = new SelectorExtractor("item.html").split(ExtractContext.of(xml));
+        Assert.assertEquals(2, records.size());
+        Assert.assertEquals("<img src=\"x\" /><b>a</b>", new SelectorExtractor("p.html").extract(records.get(0)));
+        Assert.assertEquals("<img src=\"y\" />", new SelectorExtractor("p.html").extract(records.get(1)));
+        Assert.assertEquals("<p><img src=\"y\" /></p>", records.get(1).getData());
+    }
 }
@@ -2,11 +2,14 @@ package im.nll.data.extractor.impl;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
+import im.nll.data.extractor.ExtractContext;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -82,4 +85,19 @@ public class StringRangeExtractorTest {
                 "    ", stringList.get(2));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSplitIterator() throws Exception {
+        for (String query : new String[]{"<tr class=\"item\">,</tr>,true", "<tr class=\"item\">,</tr>", "<td class=\"name\">,</td>"}) {
+            stringRangeExtractor = new StringRangeExtractor(query);
+            List<String> stringList = new ArrayList<>();
+            Iterator<ExtractContext> records = stringRangeExtractor.splitIterator(ExtractContext.of(html));
+            while (records.hasNext()) {
+                stringList.add(records.next().getData());
+            }
+            Assert.assertEquals(stringRangeExtractor.extractList(html), stringList);
+        }
+        stringRangeExtractor = new StringRangeExtractor("x,xx");
+        Assert.assertFalse(stringRangeExtractor.splitIterator(ExtractContext.of(html)).hasNext());
+    }
+}
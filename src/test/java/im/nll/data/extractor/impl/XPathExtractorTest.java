@@ -2,12 +2,16 @@ package im.nll.data.extractor.impl;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
+import im.nll.data.extractor.ExtractContext;
 import im.nll.data.extractor.exception.ExtractException;
 import org.jdom2.Namespace;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -72,6 +76,114 @@ public class XPathExtractorTest {
         Assert.assertEquals("ReceiveKeeper", s);
     }
 
+    @Test
+    public void testRemoveNamespace() {
+        xPathExtractor = new XPathExtractor("//Task").removeNamespace();
+        Assert.assertEquals("<Task href=\"/fivesmallq\">ReceiveKeeper</Task>", xPathExtractor.extract(base4Html));
+        // binary data is parsed as a stream
+        ExtractContext context = ExtractContext.of(base4Html.getBytes(Charsets.UTF_8), Charsets.UTF_8);
+        xPathExtractor = new XPathExtractor("//Sender/Task/@href").removeNamespace();
+        Assert.assertEquals("/fivesmallq", xPathExtractor.extract(context));
+        // fixhtml removes namespaces of the cleaned html
+        xPathExtractor = new XPathExtractor("//Task/text()").fixhtml().removeNamespace();
+        Assert.assertEquals("ReceiveKeeper", xPathExtractor.extract(base4Html));
+    }
+
+    @Test
+    public void testJsoup() {
+        ExtractContext context = ExtractContext.of(baseHtml);
+        Assert.assertEquals("/fivesmallq", new XPathExtractor("//div/a[1]/@href").jsoup().extract(context));
+        Assert.assertEquals("<a href=\"/fivesmallq\" class=\"title\">fivesmallq</a>", new XPathExtractor("//div/a[1]").jsoup().extract(context));
+        Assert.assertEquals("fivesmallq", new XPathExtractor("//div/a[1]/text()").jsoup().extract(context));
+        Assert.assertEquals("2", new XPathExtractor("count(//div/a)").jsoup().extract(context));
+        List<String> s = new XPathExtractor("//div/a/text()").jsoup().extractList(context);
+        Assert.assertEquals("[fivesmallq, 29671 Followers]", s.toString());
+        s = new XPathExtractor("//a[@class='title']/following::a/@href").jsoup().extractList(context);
+        Assert.assertEquals("[/fivesmallq/followers]", s.toString());
+        // selector uses the same document
+        Assert.assertEquals("29671 Followers", new SelectorExtractor("div.followers a").extract(context));
+        Object document = context.getDocument(SelectorExtractor.XML_DOCUMENT, one -> {
+            throw new AssertionError("parsed again");
+        });
+        Assert.assertNotNull(document);
+        // records are the roots of absolute paths
+        List<ExtractContext> records = new XPathExtractor("//div[@class='followers']").jsoup().split(context);
+        Assert.assertEquals(1, records.size());
+        Assert.assertEquals("/fivesmallq/followers", new XPathExtractor("//a/@href").jsoup().extract(records.get(0)));
+        Assert.assertEquals("1", new XPathExtractor("count(/div)").jsoup().extract(records.get(0)));
+        Assert.assertEquals("29671 Followers", new SelectorExtractor("a").extract(records.get(0)));
+        // selector fields see only the descendants of the record
+        Assert.assertEquals("", new SelectorExtractor("div.followers").extract(records.get(0)));
+        Assert.assertEquals("1", new XPathExtractor("count(/div)").jsoup().extract(records.get(0)));
+    }
+
+    @Test
+    public void testJsoupStringValue() {
+        // the string value is the text of the text and data nodes, same as text()
+        ExtractContext context = ExtractContext.of("<html><body><script>var s=1;</script><div>x<br>y<b>z</b></div></body></html>");
+        Assert.assertEquals("var s=1;", new XPathExtractor("//script/text()").jsoupHtml().extract(context));
+        Assert.assertEquals("var s=1;", new XPathExtractor("string(//script)").jsoupHtml().extract(context));
+        Assert.assertEquals("xyz", new XPathExtractor("string(//div)").jsoupHtml().extract(context));
+        Assert.assertEquals("1", new XPathExtractor("count(//div[. = 'xyz'])").jsoupHtml().extract(context));
+    }
+
+    @Test
+    public void testStreamSplit() throws Exception {
+        String base5Xml = Resources.toString(Resources.getResource("demo5.xml"), Charsets.UTF_8);
+        String xml = "<feed xmlns:x='urn:x'><item id='1'>a &amp; b<![CDATA[<c>]]><!--d--><x:e x:f='g'>h</x:e></item>" +
+                "<items><item id='2'><item id='3'/></item></items><x:item>4</x:item></feed>";
+        String[][] cases = {{"//item", xml}, {"/feed/item", xml}, {"/feed//item/@id", xml}, {"//*", xml},
+                {"//activity", base5Xml}, {"/ProcessDefinition/activity/config", base5Xml}, {"//Sender", base4Html}};
+        for (String[] one : cases) {
+            for (boolean removeNamespace : new boolean[]{false, true}) {
+                XPathExtractor extractor = new XPathExtractor(one[0]);
+                XPathExtractor field = new XPathExtractor("count(//*)");
+                if (removeNamespace) {
+                    extractor.removeNamespace();
+                    field.removeNamespace();
+                }
+                List<String> expected = new ArrayList<>();
+                for (ExtractContext record : extractor.split(ExtractContext.of(one[1]))) {
+                    expected.add(record.getData() + (record.getData().startsWith("<") ? field.extract(record) : ""));
+                }
+                List<String> records = new ArrayList<>();
+                Iterator<ExtractContext> iterator = extractor.splitIterator(ExtractContext.of(one[1].getBytes(Charsets.UTF_8), Charsets.UTF_8));
+                iterator.forEachRemaining(record -> records.add(record.getData() + (record.getData().startsWith("<") ? field.extract(record) : "")));
+                Assert.assertEquals(one[0] + removeNamespace, expected, records);
+            }
+        }
+        Assert.assertEquals(4, new XPathExtractor("//item").removeNamespace().split(ExtractContext.of(xml)).size());
+    }
+
+    @Test
+    public void testStreamSplitPartial() throws Exception {
+        // the records are read before the rest of the xml
+        Iterator<ExtractContext> records = new XPathExtractor("/feed/item").splitIterator(ExtractContext.of("<feed><item>1</item><item>2</item><item>"));
+        Assert.assertEquals("1", new XPathExtractor("/item/text()").extract(records.next()));
+        Assert.assertEquals("<item>2</item>", records.next().getData());
+        try {
+            records.hasNext();
+            Assert.fail("invalid xml");
+        } catch (ExtractException e) {
+            // the records before the error are read
+        }
+        records = new XPathExtractor("//item").splitIterator(ExtractContext.of("<feed><item>1</item><item>2</item></feed>"));
+        Assert.assertTrue(records instanceof Closeable);
+        Assert.assertTrue(records.hasNext());
+        ((Closeable) records).close();
+        Assert.assertFalse(records.hasNext());
+    }
+
+    @Test
+    public void testCompiledExpression() {
+        // same expression with different namespaces must not share the compiled expression
+        xPathExtractor = new XPathExtractor("//oa:Task/text()").registerNamespace("oa", "http://www.xx.com/other");
+        Assert.assertEquals("", xPathExtractor.extract(base4Html));
+        xPathExtractor = new XPathExtractor("//oa:Task/text()").registerNamespace("oa", "http://www.xx.com/xx");
+        Assert.assertEquals("ReceiveKeeper", xPathExtractor.extract(base4Html));
+        Assert.assertEquals("ReceiveKeeper", xPathExtractor.extract(base4Html));
+    }
+
     @Test(expected = ExtractException.class)
     public void testExtractParseError() throws Exception {
         //attribute
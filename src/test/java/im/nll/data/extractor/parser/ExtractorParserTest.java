@@ -1,12 +1,18 @@
 package im.nll.data.extractor.parser;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
 import im.nll.data.extractor.Extractor;
+import im.nll.data.extractor.annotation.NameIndexProcessor;
 import im.nll.data.extractor.exception.ParseException;
 import im.nll.data.extractor.impl.*;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.net.URL;
+import java.util.List;
+
 /**
  * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
  * @version Revision: 1.0
@@ -69,4 +75,13 @@ public class ExtractorParserTest {
         String string = "stringRange:<li style=\"background: rgba(0, 0, 0, 0) none repeat scroll 0% 0%;\">,</li>";
         ExtractorParser.parse(string);
     }
+
+    @Test
+    public void testIndex() throws Exception {
+        URL index = ExtractorParser.class.getClassLoader().getResource(NameIndexProcessor.INDEX);
+        Assert.assertNotNull(index);
+        List<String> classNames = Resources.readLines(index, Charsets.UTF_8);
+        Assert.assertTrue(classNames.contains(XPathExtractor.class.getName()));
+        Assert.assertTrue(classNames.contains(JSONStreamExtractor.class.getName()));
+    }
 }
@@ -2,6 +2,7 @@ package im.nll.data.extractor.rule;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
+import im.nll.data.extractor.ExtractionPlan;
 import im.nll.data.extractor.Extractors;
 import org.junit.Assert;
 import org.junit.Before;
@@ -51,4 +52,26 @@ public class ExtractRulesTest {
         Assert.assertEquals("2016.03.10", data.get("date"));
 
     }
+
+    @Test
+    public void testCompile() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("url", "selector:a.attr(href)");
+        fields.put("title", "selector:a");
+        fields.put("date", "selector:span.fr");
+        ExtractionPlan plan = Extractors.compile(ExtractRules
+                .newRules("selector:dd.x_ct1.html")
+                .fields(fields));
+        // the plan is not bound to a document
+        for (int i = 0; i < 2; i++) {
+            List<Map<String, String>> datas = plan.asMapList(listHtml2);
+            Assert.assertEquals(10, datas.size());
+            Map<String, String> data = datas.get(2);
+            Assert.assertEquals("http://infect.dxy.cn/article/486885", data.get("url"));
+            Assert.assertEquals("5 个小测验：教你轻松应对艰难梭菌感染", data.get("title"));
+            Assert.assertEquals("2016.03.10", data.get("date"));
+        }
+        Map<String, String> first = plan.asMap("<dd><a href=\"/a\">a</a><span class=\"fr\">2016</span></dd>");
+        Assert.assertEquals("{url=/a, title=a, date=2016}", first.toString());
+    }
 }
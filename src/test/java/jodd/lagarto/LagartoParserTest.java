@@ -0,0 +1,51 @@
+package jodd.lagarto;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author <a href="mailto:fivesmallq@gmail.com">fivesmallq</a>
+ * @version Revision: 1.0
+ * @date 26/10/18 上午3:41
+ */
+public class LagartoParserTest {
+
+    @Test
+    public void testReleaseAfterParse() throws Exception {
+        char[] large = new char[3 * 1024 * 1024];
+        Arrays.fill(large, 'a');
+        String page = "<p>" + new String(large) + "</p>";
+        LagartoParser parser = new LagartoParser("<p>x</p>", true);
+        List<String> texts = texts(parser);
+        Assert.assertEquals("[x]", texts.toString());
+
+        texts = texts(parser.reset(page));
+        Assert.assertEquals(large.length, texts.get(0).length());
+        // the parser kept for reuse doesn't hold the content, the visitor and the grown buffers
+        Assert.assertNull(parser.input);
+        Assert.assertNull(parser.visitor);
+        Assert.assertTrue(parser.text == null || parser.text.length <= LagartoParser.MAX_REUSED_BUFFER_LENGTH);
+        Assert.assertTrue(parser.inputBuffer == null || parser.inputBuffer.length <= LagartoParser.MAX_REUSED_BUFFER_LENGTH);
+
+        Assert.assertEquals("[y]", texts(parser.reset("<p>y</p>")).toString());
+        Assert.assertNull(parser.input);
+        // the small buffers are kept
+        Assert.assertNotNull(parser.inputBuffer);
+        Assert.assertNotNull(parser.text);
+    }
+
+    private static List<String> texts(LagartoParser parser) {
+        List<String> texts = new ArrayList<>();
+        parser.parse(new EmptyTagVisitor() {
+            @Override
+            public void text(CharSequence text) {
+                texts.add(text.toString());
+            }
+        });
+        return texts;
+    }
+}